@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.Locale;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Fills the last name key that V8 added to every owner. The folding is done in Java,
+ * since none of the databases can strip accents the same way in SQL. It is a copy of
+ * <code>Owner.lastNameKey</code> as of this migration, so that the migration stays the
+ * same if the folding of the application changes; such a change needs a migration of its
+ * own.
+ *
+ * <p>
+ * Owners are read and updated in batches in the order of their id, so the migration holds
+ * a bounded number of rows at a time on large tables.
+ * </p>
+ */
+public class V9__Fill_owner_last_name_keys extends BaseJavaMigration {
+
+	private static final int BATCH_SIZE = 1000;
+
+	private static final String SELECT_OWNERS = "SELECT id, last_name FROM owners WHERE id > ? ORDER BY id";
+
+	private static final String UPDATE_OWNER = "UPDATE owners SET last_name_key = ? WHERE id = ?";
+
+	@Override
+	public void migrate(Context context) throws SQLException {
+		Connection connection = context.getConnection();
+		try (PreparedStatement select = connection.prepareStatement(SELECT_OWNERS);
+				PreparedStatement update = connection.prepareStatement(UPDATE_OWNER)) {
+			select.setMaxRows(BATCH_SIZE);
+			int lastId = 0;
+			int rows;
+			do {
+				rows = 0;
+				select.setInt(1, lastId);
+				try (ResultSet owners = select.executeQuery()) {
+					while (owners.next()) {
+						lastId = owners.getInt(1);
+						update.setString(1, lastNameKey(owners.getString(2)));
+						update.setInt(2, lastId);
+						update.addBatch();
+						rows++;
+					}
+				}
+				update.executeBatch();
+			}
+			while (rows == BATCH_SIZE);
+		}
+	}
+
+	private static String lastNameKey(String lastName) {
+		if (lastName == null) {
+			return null;
+		}
+		String decomposed = Normalizer.normalize(lastName.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+		StringBuilder key = new StringBuilder(decomposed.length());
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			int type = Character.getType(c);
+			if (type != Character.NON_SPACING_MARK && type != Character.COMBINING_SPACING_MARK
+					&& type != Character.ENCLOSING_MARK) {
+				key.append(c);
+			}
+		}
+		return Normalizer.normalize(key, Normalizer.Form.NFC);
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.adapter.out.ChangeOutbox;
+import org.springframework.samples.petclinic.adapter.out.ChangeRelay;
+import org.springframework.samples.petclinic.domain.ChangeEvent;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Change feed of owners, pets and visits, for downstream systems that would otherwise
+ * poll the tables.
+ * <p>
+ * <code>GET /changes?after={offset}</code> returns the next page of events as
+ * newline-delimited JSON; a consumer asks again after the offset of the last line it
+ * received. With <code>Accept: text/event-stream</code>, the same request opens a
+ * Server-Sent Events stream instead, which catches up from the given offset and then
+ * pushes new events as the {@link ChangeRelay} publishes them. Each event carries its
+ * offset as the event id, so a reconnecting <code>EventSource</code> resumes through the
+ * <code>Last-Event-ID</code> header.
+ * </p>
+ */
+@RestController
+class ChangeFeedController implements DisposableBean {
+
+	static final int PAGE_SIZE = 1000;
+
+	static final int MAX_SUBSCRIBERS = 200;
+
+	private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+
+	private final ChangeOutbox outbox;
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4, threadFactory());
+
+	ChangeFeedController(ChangeOutbox outbox, ChangeRelay relay) {
+		this.outbox = outbox;
+		relay.addListener(offset -> this.subscribers.forEach(Subscriber::schedule));
+	}
+
+	@GetMapping(path = "/changes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<String> changes(@RequestParam(defaultValue = "0") long after,
+			@RequestParam(defaultValue = "" + PAGE_SIZE) int limit) {
+		List<ChangeEvent> events = this.outbox.readAfter(after, Math.max(1, Math.min(limit, PAGE_SIZE)));
+		StringBuilder body = new StringBuilder();
+		for (ChangeEvent event : events) {
+			body.append(ChangeOutbox.toJson(event)).append('\n');
+		}
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body.toString());
+	}
+
+	@GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter stream(@RequestParam(required = false) Long after,
+			@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+		if (this.subscribers.size() >= MAX_SUBSCRIBERS) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many change feed subscribers");
+		}
+		long offset = (lastEventId != null) ? lastEventId : (after != null) ? after : 0;
+		SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+		Subscriber subscriber = new Subscriber(emitter, offset);
+		emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+		emitter.onTimeout(emitter::complete);
+		emitter.onError(ex -> this.subscribers.remove(subscriber));
+		this.subscribers.add(subscriber);
+		// the backlog is sent right away, later events on the executor
+		subscriber.catchUp();
+		return emitter;
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+		this.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+	}
+
+	private static CustomizableThreadFactory threadFactory() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("change-feed-");
+		threadFactory.setDaemon(true);
+		return threadFactory;
+	}
+
+	private final class Subscriber {
+
+		private final SseEmitter emitter;
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private long offset;
+
+		private Subscriber(SseEmitter emitter, long offset) {
+			this.emitter = emitter;
+			this.offset = offset;
+		}
+
+		void schedule() {
+			if (this.scheduled.compareAndSet(false, true)) {
+				executor.execute(() -> {
+					this.scheduled.set(false);
+					catchUp();
+				});
+			}
+		}
+
+		synchronized void catchUp() {
+			try {
+				List<ChangeEvent> events;
+				do {
+					events = outbox.readAfter(this.offset, PAGE_SIZE);
+					for (ChangeEvent event : events) {
+						this.emitter.send(SseEmitter.event()
+							.id(Long.toString(event.offset()))
+							.name("change")
+							.data(ChangeOutbox.toJson(event), MediaType.APPLICATION_JSON));
+						this.offset = event.offset();
+					}
+				}
+				while (events.size() == PAGE_SIZE);
+			}
+			catch (IOException | IllegalStateException ex) {
+				// the client went away
+				subscribers.remove(this);
+				this.emitter.completeWithError(ex);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.support.AbstractMessageSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link org.springframework.context.MessageSource} that compiles all
+ * <code>messages*.properties</code> bundles once at startup into immutable per-locale
+ * tables.
+ * <p>
+ * Each table already contains the fallback chain (for example <code>de_AT</code>, then
+ * <code>de</code>, then the default bundle), and every message is pre-parsed into a
+ * {@link MessageFormat}. Resolving a key on the render path is therefore a single hash
+ * lookup without any {@link java.util.ResourceBundle} access or allocation. Locales
+ * without a bundle of their own fall back to the default bundle.
+ * </p>
+ * <p>
+ * Tables for locales without a bundle of their own are compiled on first use, up to a
+ * fixed number. Beyond that, such locales share the table of the nearest compiled locale,
+ * so a lookup never compiles a table.
+ * </p>
+ */
+public class CompiledMessageSource extends AbstractMessageSource {
+
+	private static final String SUFFIX = ".properties";
+
+	private static final int MAX_DERIVED_TABLES = 64;
+
+	private final Map<Locale, Map<String, String>> bundles;
+
+	private final Map<Locale, MessageTable> tables = new ConcurrentHashMap<>();
+
+	public CompiledMessageSource(String... basenames) {
+		this.bundles = loadBundles(basenames);
+		for (Locale locale : this.bundles.keySet()) {
+			this.tables.put(locale, compile(locale));
+		}
+	}
+
+	/**
+	 * Return the locales that have a bundle of their own, {@link Locale#ROOT} standing
+	 * for the default bundle.
+	 * @return the compiled locales
+	 */
+	public Set<Locale> getCompiledLocales() {
+		return this.bundles.keySet();
+	}
+
+	/**
+	 * Return the compiled messages for the given locale, fallbacks included.
+	 * @param locale the locale to look up
+	 * @return an immutable map of message codes to messages
+	 */
+	public Map<String, String> getMessages(Locale locale) {
+		return tableFor(locale).messages();
+	}
+
+	@Override
+	protected String resolveCodeWithoutArguments(String code, Locale locale) {
+		return tableFor(locale).messages().get(code);
+	}
+
+	@Override
+	protected MessageFormat resolveCode(String code, Locale locale) {
+		return tableFor(locale).formats().get(code);
+	}
+
+	private MessageTable tableFor(Locale locale) {
+		MessageTable table = this.tables.get(locale);
+		if (table != null) {
+			return table;
+		}
+		// Bound the cache: locales come straight from the Accept-Language header
+		if (this.tables.size() >= this.bundles.size() + MAX_DERIVED_TABLES) {
+			return nearestTable(locale);
+		}
+		return this.tables.computeIfAbsent(locale, this::compile);
+	}
+
+	private MessageTable nearestTable(Locale locale) {
+		for (Locale candidate : candidates(locale)) {
+			MessageTable table = this.tables.get(candidate);
+			if (table != null) {
+				return table;
+			}
+		}
+		// unreachable, the default bundle is always compiled
+		return this.tables.get(Locale.ROOT);
+	}
+
+	private MessageTable compile(Locale locale) {
+		Map<String, String> messages = new HashMap<>();
+		for (Locale candidate : candidates(locale)) {
+			Map<String, String> bundle = this.bundles.get(candidate);
+			if (bundle != null) {
+				bundle.forEach(messages::putIfAbsent);
+			}
+		}
+		Map<String, MessageFormat> formats = new HashMap<>();
+		messages.forEach((code, message) -> formats.put(code, createMessageFormat(message, locale)));
+		return new MessageTable(Map.copyOf(messages), Map.copyOf(formats));
+	}
+
+	private static List<Locale> candidates(Locale locale) {
+		List<Locale> candidates = new ArrayList<>(4);
+		if (StringUtils.hasLength(locale.getVariant())) {
+			candidates.add(new Locale(locale.getLanguage(), locale.getCountry(), locale.getVariant()));
+		}
+		if (StringUtils.hasLength(locale.getCountry())) {
+			candidates.add(new Locale(locale.getLanguage(), locale.getCountry()));
+		}
+		if (StringUtils.hasLength(locale.getLanguage())) {
+			candidates.add(new Locale(locale.getLanguage()));
+		}
+		candidates.add(Locale.ROOT);
+		return candidates;
+	}
+
+	private static Map<Locale, Map<String, String>> loadBundles(String... basenames) {
+		ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+		Map<Locale, Map<String, String>> bundles = new LinkedHashMap<>();
+		bundles.put(Locale.ROOT, new HashMap<>());
+		try {
+			// earlier basenames and classpath entries take precedence
+			for (String basename : basenames) {
+				String base = StringUtils.getFilename(basename.trim());
+				for (Resource resource : resolver.getResources("classpath*:" + basename.trim() + "*" + SUFFIX)) {
+					Locale locale = localeOf(base, resource.getFilename());
+					if (locale != null) {
+						Map<String, String> bundle = bundles.computeIfAbsent(locale, key -> new HashMap<>());
+						read(resource).forEach((code, message) -> bundle.putIfAbsent(code, message));
+					}
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Cannot load message bundles", ex);
+		}
+		Map<Locale, Map<String, String>> compiled = new LinkedHashMap<>();
+		bundles.forEach((locale, bundle) -> compiled.put(locale, Map.copyOf(bundle)));
+		return Map.copyOf(compiled);
+	}
+
+	private static Locale localeOf(String base, String filename) {
+		if (filename == null || !filename.startsWith(base) || !filename.endsWith(SUFFIX)) {
+			return null;
+		}
+		String suffix = filename.substring(base.length(), filename.length() - SUFFIX.length());
+		if (suffix.isEmpty()) {
+			return Locale.ROOT;
+		}
+		return suffix.startsWith("_") ? StringUtils.parseLocale(suffix.substring(1)) : null;
+	}
+
+	private static Map<String, String> read(Resource resource) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		Map<String, String> messages = new HashMap<>();
+		for (String code : properties.stringPropertyNames()) {
+			messages.put(code, properties.getProperty(code));
+		}
+		return messages;
+	}
+
+	private record MessageTable(Map<String, String> messages, Map<String, MessageFormat> formats) {
+	}
+
+}
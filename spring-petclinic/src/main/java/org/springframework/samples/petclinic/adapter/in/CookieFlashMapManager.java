@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.support.AbstractFlashMapManager;
+import org.springframework.web.util.WebUtils;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * {@link org.springframework.web.servlet.FlashMapManager} that keeps flash attributes in
+ * an HMAC-signed cookie instead of the HTTP session, so a redirect can be followed by any
+ * replica.
+ * <p>
+ * Only {@link String} attribute values are stored, which covers the success and error
+ * messages set by the controllers. The encoded cookie is capped at
+ * {@link #MAX_COOKIE_VALUE_LENGTH} characters; flash attributes that do not fit are
+ * dropped rather than failing the redirect.
+ * </p>
+ */
+class CookieFlashMapManager extends AbstractFlashMapManager {
+
+	static final String COOKIE_NAME = "petclinic-flash";
+
+	static final int MAX_COOKIE_VALUE_LENGTH = 3072;
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private static final String FLASH_MAPS_ATTRIBUTE = CookieFlashMapManager.class.getName() + ".FLASH_MAPS";
+
+	private static final Log logger = LogFactory.getLog(CookieFlashMapManager.class);
+
+	private final SecretKeySpec key;
+
+	CookieFlashMapManager(byte[] secret) {
+		Assert.isTrue(secret.length > 0, "Secret must not be empty");
+		this.key = new SecretKeySpec(secret, ALGORITHM);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected List<FlashMap> retrieveFlashMaps(HttpServletRequest request) {
+		// the cookie on the request is stale once this request has updated the flash maps
+		Object updated = request.getAttribute(FLASH_MAPS_ATTRIBUTE);
+		if (updated != null) {
+			return new ArrayList<>((List<FlashMap>) updated);
+		}
+		Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+		if (cookie == null || !StringUtils.hasText(cookie.getValue())) {
+			return null;
+		}
+		byte[] payload = verify(cookie.getValue());
+		if (payload == null) {
+			logger.debug("Ignoring flash cookie with invalid signature");
+			return null;
+		}
+		try {
+			return decode(payload);
+		}
+		catch (IOException ex) {
+			logger.debug("Ignoring malformed flash cookie", ex);
+			return null;
+		}
+	}
+
+	@Override
+	protected void updateFlashMaps(List<FlashMap> flashMaps, HttpServletRequest request, HttpServletResponse response) {
+		request.setAttribute(FLASH_MAPS_ATTRIBUTE, flashMaps);
+		String value = flashMaps.isEmpty() ? "" : sign(encode(flashMaps));
+		if (value.length() > MAX_COOKIE_VALUE_LENGTH) {
+			logger.warn("Flash attributes exceed " + MAX_COOKIE_VALUE_LENGTH + " characters and are discarded");
+			value = "";
+		}
+		String path = StringUtils.hasLength(request.getContextPath()) ? request.getContextPath() : "/";
+		ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+			.path(path)
+			.maxAge(value.isEmpty() ? 0 : getFlashMapTimeout())
+			.httpOnly(true)
+			.secure(request.isSecure())
+			.sameSite("Lax")
+			.build();
+		response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+	}
+
+	/**
+	 * Flash maps live in the client's cookie, so there is no shared state to guard.
+	 */
+	@Override
+	protected Object getFlashMapsMutex(HttpServletRequest request) {
+		return null;
+	}
+
+	private String sign(byte[] payload) {
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		return encoder.encodeToString(payload) + "." + encoder.encodeToString(mac(payload));
+	}
+
+	private byte[] verify(String value) {
+		int separator = value.indexOf('.');
+		if (separator < 0) {
+			return null;
+		}
+		try {
+			Base64.Decoder decoder = Base64.getUrlDecoder();
+			byte[] payload = decoder.decode(value.substring(0, separator));
+			byte[] signature = decoder.decode(value.substring(separator + 1));
+			return MessageDigest.isEqual(mac(payload), signature) ? payload : null;
+		}
+		catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	private byte[] mac(byte[] payload) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(this.key);
+			return mac.doFinal(payload);
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IllegalStateException("Cannot sign flash cookie", ex);
+		}
+	}
+
+	private static byte[] encode(List<FlashMap> flashMaps) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(flashMaps.size());
+			for (FlashMap flashMap : flashMaps) {
+				out.writeLong(flashMap.getExpirationTime());
+				out.writeBoolean(flashMap.getTargetRequestPath() != null);
+				if (flashMap.getTargetRequestPath() != null) {
+					writeString(out, flashMap.getTargetRequestPath());
+				}
+				out.writeInt(flashMap.getTargetRequestParams().size());
+				for (Map.Entry<String, List<String>> param : flashMap.getTargetRequestParams().entrySet()) {
+					writeString(out, param.getKey());
+					out.writeInt(param.getValue().size());
+					for (String paramValue : param.getValue()) {
+						writeString(out, paramValue);
+					}
+				}
+				List<Map.Entry<String, Object>> attributes = flashMap.entrySet()
+					.stream()
+					.filter(attribute -> attribute.getValue() instanceof String)
+					.toList();
+				out.writeInt(attributes.size());
+				for (Map.Entry<String, Object> attribute : attributes) {
+					writeString(out, attribute.getKey());
+					writeString(out, (String) attribute.getValue());
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot encode flash attributes", ex);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static List<FlashMap> decode(byte[] payload) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+			int count = in.readInt();
+			List<FlashMap> flashMaps = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				FlashMap flashMap = new FlashMap();
+				flashMap.setExpirationTime(in.readLong());
+				if (in.readBoolean()) {
+					flashMap.setTargetRequestPath(readString(in));
+				}
+				int params = in.readInt();
+				for (int p = 0; p < params; p++) {
+					String name = readString(in);
+					int values = in.readInt();
+					for (int v = 0; v < values; v++) {
+						flashMap.addTargetRequestParam(name, readString(in));
+					}
+				}
+				int attributes = in.readInt();
+				for (int a = 0; a < attributes; a++) {
+					flashMap.put(readString(in), readString(in));
+				}
+				flashMaps.add(flashMap);
+			}
+			return flashMaps;
+		}
+	}
+
+	/**
+	 * Writes the UTF-8 bytes behind an {@code int} length, as
+	 * {@link DataOutputStream#writeUTF(String)} fails on strings over 64KB. Such a string
+	 * then simply makes the cookie too large, and it is discarded like any other.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > in.available()) {
+			throw new IOException("Invalid string length " + length);
+		}
+		return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+	}
+
+}
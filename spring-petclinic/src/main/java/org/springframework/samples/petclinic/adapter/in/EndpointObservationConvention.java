@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Tags the <code>http.server.requests</code> observations with the controller method that
+ * handled the request, e.g. <code>endpoint=OwnerController.showOwner</code>, so the
+ * latency of every controller method can be told apart even where methods share a URI
+ * template. Requests not handled by a controller method are tagged with
+ * <code>none</code>.
+ */
+class EndpointObservationConvention extends DefaultServerRequestObservationConvention {
+
+	static final String ENDPOINT = "endpoint";
+
+	private static final KeyValue ENDPOINT_NONE = KeyValue.of(ENDPOINT, KeyValue.NONE_VALUE);
+
+	@Override
+	public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+		return super.getLowCardinalityKeyValues(context).and(endpoint(context));
+	}
+
+	private KeyValue endpoint(ServerRequestObservationContext context) {
+		if (context.getCarrier() != null && context.getCarrier()
+			.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+			return KeyValue.of(ENDPOINT, endpoint(handler));
+		}
+		return ENDPOINT_NONE;
+	}
+
+	static String endpoint(HandlerMethod handler) {
+		return handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+	}
+
+}
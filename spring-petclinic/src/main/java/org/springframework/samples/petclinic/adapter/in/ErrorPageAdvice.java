@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.MessageSource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.domain.NotFoundException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+import org.springframework.web.util.HtmlUtils;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Answers expected client errors (unknown owners and pets, unknown URLs, malformed ids)
+ * with a small pre-rendered page instead of the full <code>error.html</code> view.
+ * <p>
+ * The page body only depends on the localized status message and the context path its
+ * home link points to, so it is rendered once per distinct pair and then served from
+ * memory. Every handled error is counted in the <code>petclinic.errors</code> meter,
+ * tagged with the exception type and the status. Server errors are left to the regular
+ * error page.
+ * </p>
+ */
+@ControllerAdvice
+class ErrorPageAdvice {
+
+	static final String METER_NAME = "petclinic.errors";
+
+	private static final MediaType TEXT_HTML_UTF8 = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+
+	private final MessageSource messages;
+
+	private final MeterRegistry registry;
+
+	private final Map<PageKey, byte[]> bodies = new ConcurrentHashMap<>();
+
+	private final Map<Class<?>, Counter> counters = new ConcurrentHashMap<>();
+
+	ErrorPageAdvice(MessageSource messages, ObjectProvider<MeterRegistry> registry) {
+		this.messages = messages;
+		this.registry = registry.getIfAvailable(() -> Metrics.globalRegistry);
+	}
+
+	@ExceptionHandler({ NotFoundException.class, NoResourceFoundException.class })
+	ResponseEntity<byte[]> handleNotFound(Exception ex, HttpServletRequest request, Locale locale) {
+		return render(HttpStatus.NOT_FOUND, "error.404", ex, request, locale);
+	}
+
+	@ExceptionHandler({ MethodArgumentTypeMismatchException.class, MissingServletRequestParameterException.class })
+	ResponseEntity<byte[]> handleBadRequest(Exception ex, HttpServletRequest request, Locale locale) {
+		return render(HttpStatus.BAD_REQUEST, "error.400", ex, request, locale);
+	}
+
+	private ResponseEntity<byte[]> render(HttpStatus status, String code, Exception ex, HttpServletRequest request,
+			Locale locale) {
+		count(status, ex);
+		String message = this.messages.getMessage(code, null, code, locale);
+		PageKey pageKey = new PageKey(request.getContextPath(), message);
+		byte[] body = this.bodies.computeIfAbsent(pageKey, key -> page(status, key));
+		return ResponseEntity.status(status)
+			.contentType(TEXT_HTML_UTF8)
+			.cacheControl(CacheControl.noStore())
+			.body(body);
+	}
+
+	private void count(HttpStatus status, Exception ex) {
+		this.counters
+			.computeIfAbsent(ex.getClass(),
+					type -> Counter.builder(METER_NAME)
+						.description("Client errors answered with the lightweight error page")
+						.tag("exception", type.getSimpleName())
+						.tag("status", String.valueOf(status.value()))
+						.register(this.registry))
+			.increment();
+	}
+
+	private static byte[] page(HttpStatus status, PageKey key) {
+		String html = "<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>PetClinic :: " + status.value()
+				+ "</title></head><body><h2>" + status.value() + "</h2><p>" + HtmlUtils.htmlEscape(key.message())
+				+ "</p><p><a href=\"" + HtmlUtils.htmlEscape(key.contextPath()) + "/\">PetClinic</a></p></body></html>";
+		return html.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private record PageKey(String contextPath, String message) {
+	}
+
+}
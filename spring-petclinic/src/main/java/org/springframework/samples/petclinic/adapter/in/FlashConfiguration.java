@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.FlashMapManager;
+
+/**
+ * Keeps flash attributes in a signed cookie, so the application never needs an HTTP
+ * session.
+ */
+@Configuration(proxyBeanMethods = false)
+class FlashConfiguration {
+
+	private static final Log logger = LogFactory.getLog(FlashConfiguration.class);
+
+	/**
+	 * Keeps flash attributes in a signed cookie instead of the HTTP session. All replicas
+	 * must share <code>petclinic.flash.secret</code>; without it a random per-instance
+	 * key is used.
+	 * @param environment the environment holding the signing key
+	 * @return cookie-based {@link FlashMapManager}
+	 */
+	@Bean
+	FlashMapManager flashMapManager(Environment environment) {
+		String secret = environment.getProperty("petclinic.flash.secret");
+		byte[] key;
+		if (StringUtils.hasText(secret)) {
+			key = secret.getBytes(StandardCharsets.UTF_8);
+		}
+		else {
+			logger.warn("No petclinic.flash.secret configured, flash messages only survive on this instance");
+			key = new byte[32];
+			new SecureRandom().nextBytes(key);
+		}
+		return new CookieFlashMapManager(key);
+	}
+
+}
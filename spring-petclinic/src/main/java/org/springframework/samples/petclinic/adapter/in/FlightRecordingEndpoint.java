@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Actuator endpoint running one Java Flight Recorder recording at a time, with the pet
+ * clinic events alongside the JDK ones:
+ * <ul>
+ * <li><code>POST /actuator/flightrecording</code> starts a recording, optionally with its
+ * <code>duration</code>, <code>maxSize</code> and JFR <code>settings</code>
+ * (<code>default</code> or <code>profile</code>)</li>
+ * <li><code>GET /actuator/flightrecording</code> downloads what has been recorded so far
+ * as a <code>.jfr</code> file</li>
+ * <li><code>DELETE /actuator/flightrecording</code> stops and discards the recording</li>
+ * </ul>
+ * Recordings are bounded: they stop after at most {@link #MAX_DURATION} and keep at most
+ * {@link #MAX_SIZE} of data, dropping the oldest first.
+ * <p>
+ * Recordings reveal what the application is doing, so the endpoint is inaccessible unless
+ * <code>management.endpoint.flightrecording.access</code> allows it. The events that
+ * capture environment variables, system properties and JVM arguments, where secrets such
+ * as passwords end up, are never recorded.
+ * </p>
+ */
+@Component
+@Endpoint(id = "flightrecording", defaultAccess = Access.NONE)
+class FlightRecordingEndpoint {
+
+	static final Duration MAX_DURATION = Duration.ofHours(1);
+
+	static final DataSize MAX_SIZE = DataSize.ofMegabytes(256);
+
+	private static final Duration DEFAULT_DURATION = Duration.ofMinutes(5);
+
+	private static final DataSize DEFAULT_SIZE = DataSize.ofMegabytes(64);
+
+	private static final String[] SECRET_EVENTS = { "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty",
+			"jdk.JVMInformation" };
+
+	private Recording recording;
+
+	@WriteOperation
+	synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Duration duration, @Nullable DataSize maxSize,
+			@Nullable String settings) throws IOException {
+		if (this.recording != null && this.recording.getState() == RecordingState.RUNNING) {
+			return new WebEndpointResponse<>(describe(this.recording), WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+		}
+		Configuration configuration;
+		try {
+			configuration = Configuration.getConfiguration((settings != null) ? settings : "default");
+		}
+		catch (IOException | ParseException ex) {
+			return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+		}
+		discard();
+		Recording recording = new Recording(configuration);
+		recording.setName("petclinic");
+		for (String event : SECRET_EVENTS) {
+			recording.disable(event);
+		}
+		recording.setToDisk(true);
+		recording.setDuration(min(duration, DEFAULT_DURATION, MAX_DURATION));
+		recording
+			.setMaxSize(Math.min((maxSize != null) ? maxSize.toBytes() : DEFAULT_SIZE.toBytes(), MAX_SIZE.toBytes()));
+		recording.start();
+		this.recording = recording;
+		return new WebEndpointResponse<>(describe(recording));
+	}
+
+	@ReadOperation(produces = "application/octet-stream")
+	synchronized WebEndpointResponse<Resource> download() throws IOException {
+		if (this.recording == null) {
+			return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+		}
+		Path file = Files.createTempFile("petclinic-", ".jfr");
+		try {
+			this.recording.dump(file);
+			// still readable once deleted, its space is freed when the stream is closed,
+			// or collected if the response is never written
+			return new WebEndpointResponse<>(new InputStreamResource(Files.newInputStream(file)));
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@DeleteOperation
+	synchronized WebEndpointResponse<Void> stop() {
+		if (this.recording == null) {
+			return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+		}
+		discard();
+		return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+	}
+
+	private void discard() {
+		if (this.recording != null) {
+			this.recording.close();
+			this.recording = null;
+		}
+	}
+
+	private static Duration min(Duration duration, Duration defaultDuration, Duration maxDuration) {
+		if (duration == null || duration.isNegative() || duration.isZero()) {
+			return defaultDuration;
+		}
+		return (duration.compareTo(maxDuration) > 0) ? maxDuration : duration;
+	}
+
+	private static Map<String, Object> describe(Recording recording) {
+		Map<String, Object> description = new LinkedHashMap<>();
+		description.put("name", recording.getName());
+		description.put("state", recording.getState());
+		description.put("startTime", recording.getStartTime());
+		description.put("duration", recording.getDuration());
+		description.put("maxSize", recording.getMaxSize());
+		return description;
+	}
+
+}
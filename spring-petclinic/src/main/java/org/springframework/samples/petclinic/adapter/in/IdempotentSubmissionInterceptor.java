@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.view.UrlBasedViewResolver;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Makes the creation forms idempotent: every rendered form carries a fresh token in the
+ * <code>idempotencyToken</code> parameter, and a POST repeating a token that has already
+ * been submitted gets the redirect of the first submission without reaching the
+ * controller, so double clicks and client retries do not insert duplicate rows.
+ * <p>
+ * A repeat that arrives while the first submission is still being handled waits for its
+ * outcome. Submissions that end without a redirect, such as a form re-rendered with
+ * validation errors, give their token up so that the corrected form can be sent again.
+ * POST requests without a token are handled as before.
+ * </p>
+ */
+class IdempotentSubmissionInterceptor implements HandlerInterceptor {
+
+	static final String PARAMETER = "idempotencyToken";
+
+	private static final int MAX_TOKEN_LENGTH = 64;
+
+	private static final Duration REPLAY_TIMEOUT = Duration.ofSeconds(10);
+
+	private static final String TOKEN_ATTRIBUTE = IdempotentSubmissionInterceptor.class.getName() + ".TOKEN";
+
+	private final SubmissionTokens tokens;
+
+	IdempotentSubmissionInterceptor(SubmissionTokens tokens) {
+		this.tokens = tokens;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws IOException {
+		String token = request.getParameter(PARAMETER);
+		if (!HttpMethod.POST.matches(request.getMethod()) || !StringUtils.hasText(token)
+				|| token.length() > MAX_TOKEN_LENGTH) {
+			return true;
+		}
+		CompletableFuture<String> earlier = this.tokens.begin(token);
+		if (earlier == null) {
+			request.setAttribute(TOKEN_ATTRIBUTE, token);
+			return true;
+		}
+		String redirect = await(earlier);
+		if (redirect == null) {
+			// the earlier submission failed, or is still running after the timeout
+			response.sendError(HttpStatus.CONFLICT.value());
+			return false;
+		}
+		String location = response.encodeRedirectURL(request.getContextPath() + redirect);
+		if (PartialViewInterceptor.isPartial(request)) {
+			response.setHeader(PartialViewInterceptor.REDIRECT_HEADER, location);
+		}
+		else {
+			response.sendRedirect(location);
+		}
+		return false;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+			ModelAndView modelAndView) {
+		String viewName = (modelAndView != null) ? modelAndView.getViewName() : null;
+		boolean redirect = viewName != null && viewName.startsWith(UrlBasedViewResolver.REDIRECT_URL_PREFIX);
+		String token = (String) request.getAttribute(TOKEN_ATTRIBUTE);
+		if (token != null) {
+			request.removeAttribute(TOKEN_ATTRIBUTE);
+			if (redirect) {
+				this.tokens.complete(token,
+						expand(request, viewName.substring(UrlBasedViewResolver.REDIRECT_URL_PREFIX.length())));
+			}
+			else {
+				this.tokens.release(token);
+			}
+		}
+		if (modelAndView != null && !redirect) {
+			modelAndView.addObject(PARAMETER, UUID.randomUUID().toString());
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		String token = (String) request.getAttribute(TOKEN_ATTRIBUTE);
+		if (token != null) {
+			this.tokens.release(token);
+		}
+	}
+
+	private static String await(CompletableFuture<String> redirect) {
+		try {
+			return redirect.get(REPLAY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch (ExecutionException | TimeoutException ex) {
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static String expand(HttpServletRequest request, String url) {
+		Map<String, String> variables = (Map<String, String>) request
+			.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		return UriComponentsBuilder.fromUriString(url)
+			.buildAndExpand(variables != null ? variables : Map.of())
+			.toUriString();
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.time.Duration;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.adapter.out.ReadReplicas;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the interceptors of this package: the one recording requests for the flight
+ * recorder, the one keeping requests within their statement budget, the one handling
+ * partial (htmx) requests, the one keeping clients that wrote on the primary while there
+ * are read replicas, and the one deduplicating submissions of the creation forms.
+ */
+@Configuration(proxyBeanMethods = false)
+class InterceptorConfiguration implements WebMvcConfigurer {
+
+	private static final int DEFAULT_MAX_STATEMENTS = 20;
+
+	private static final int DEFAULT_MAX_REPEATED_STATEMENTS = 5;
+
+	private static final int MAX_SUBMISSION_TOKENS = 10_000;
+
+	private static final Duration SUBMISSION_TOKEN_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+	private static final Log logger = LogFactory.getLog(InterceptorConfiguration.class);
+
+	private final ObjectProvider<ReadReplicas> readReplicas;
+
+	private final Environment environment;
+
+	InterceptorConfiguration(ObjectProvider<ReadReplicas> readReplicas, Environment environment) {
+		this.readReplicas = readReplicas;
+		this.environment = environment;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new RequestEventInterceptor());
+		boolean budget = this.environment.getProperty("petclinic.jdbc.statement-budget.enabled", Boolean.class, true);
+		if (budget && !this.environment.getProperty("petclinic.jdbc.statement-metrics.enabled", Boolean.class, true)) {
+			// without the statement metrics nothing counts the statements
+			logger.warn("petclinic.jdbc.statement-metrics is disabled, requests are not held to a statement budget");
+			budget = false;
+		}
+		if (budget) {
+			registry.addInterceptor(new StatementBudgetInterceptor(
+					this.environment.getProperty("petclinic.jdbc.statement-budget.max-statements", Integer.class,
+							DEFAULT_MAX_STATEMENTS),
+					this.environment.getProperty("petclinic.jdbc.statement-budget.max-repeats", Integer.class,
+							DEFAULT_MAX_REPEATED_STATEMENTS),
+					this.environment.getProperty("petclinic.jdbc.statement-budget.reject", Boolean.class, false)));
+		}
+		registry.addInterceptor(new PartialViewInterceptor());
+		this.readReplicas.ifAvailable(
+				replicas -> registry.addInterceptor(new ReadYourWritesInterceptor(replicas.getReadYourWritesWindow())));
+		// ordered last, also after the interceptors of other configurers, so that it sees
+		// redirect view names before they are swapped
+		registry
+			.addInterceptor(new IdempotentSubmissionInterceptor(
+					new SubmissionTokens(MAX_SUBMISSION_TOKENS, SUBMISSION_TOKEN_TIME_TO_LIVE)))
+			.addPathPatterns("/owners/new", "/owners/*/pets/new", "/owners/*/pets/*/visits/new")
+			.order(Ordered.LOWEST_PRECEDENCE);
+	}
+
+}
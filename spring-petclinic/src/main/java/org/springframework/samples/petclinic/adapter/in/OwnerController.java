@@ -18,11 +18,12 @@ package org.springframework.samples.petclinic.adapter.in;
 import java.util.List;
 
 import java.util.Objects;
-import java.util.Optional;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -35,11 +36,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.application.VisitService;
 import org.springframework.samples.petclinic.domain.Owner;
 
 /**
@@ -54,10 +57,13 @@ class OwnerController {
 
 	private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
 
-	private final OwnerRepository owners;
+	private final OwnerService ownerService;
 
-	public OwnerController(OwnerRepository owners) {
-		this.owners = owners;
+	private final VisitService visitService;
+
+	public OwnerController(OwnerService ownerService, VisitService visitService) {
+		this.ownerService = ownerService;
+		this.visitService = visitService;
 	}
 
 	@InitBinder
@@ -65,12 +71,24 @@ class OwnerController {
 		dataBinder.setDisallowedFields("id");
 	}
 
+	/**
+	 * Provides the owner the pages and forms are bound to. Only pages load the stored
+	 * owner: a submitted edit is bound to a new owner carrying the id of the URL, and
+	 * {@link OwnerService#updateOwner} loads and checks the stored one in its single
+	 * transaction, including the version the form was rendered with.
+	 * @param ownerId the owner in the URL, if any
+	 * @param request the current request
+	 * @return the stored owner, or a new one
+	 */
 	@ModelAttribute("owner")
-	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId) {
-		return ownerId == null ? new Owner()
-				: this.owners.findById(ownerId)
-					.orElseThrow(() -> new IllegalArgumentException("Owner not found with id: " + ownerId
-							+ ". Please ensure the ID is correct " + "and the owner exists in the database."));
+	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId,
+			HttpServletRequest request) {
+		if (ownerId != null && !HttpMethod.POST.matches(request.getMethod())) {
+			return this.ownerService.findOwner(ownerId);
+		}
+		Owner owner = new Owner();
+		owner.setId(ownerId);
+		return owner;
 	}
 
 	@GetMapping("/owners/new")
@@ -79,13 +97,14 @@ class OwnerController {
 	}
 
 	@PostMapping("/owners/new")
-	public String processCreationForm(@Valid Owner owner, BindingResult result, RedirectAttributes redirectAttributes) {
+	public String processCreationForm(@Valid Owner owner, BindingResult result, RedirectAttributes redirectAttributes,
+			HttpServletRequest request) {
 		if (result.hasErrors()) {
 			redirectAttributes.addFlashAttribute("error", "There was an error in creating the owner.");
-			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+			return PartialViewInterceptor.view(request, VIEWS_OWNER_CREATE_OR_UPDATE_FORM, "form");
 		}
 
-		this.owners.save(owner);
+		this.ownerService.createOwner(owner);
 		redirectAttributes.addFlashAttribute("message", "New Owner Created");
 		return "redirect:/owners/" + owner.getId();
 	}
@@ -97,7 +116,7 @@ class OwnerController {
 
 	@GetMapping("/owners")
 	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
-			Model model) {
+			Model model, HttpServletRequest request) {
 		// allow parameterless GET request for /owners to return all records
 		String lastName = owner.getLastName();
 		if (lastName == null) {
@@ -119,22 +138,22 @@ class OwnerController {
 		}
 
 		// multiple owners found
-		return addPaginationModel(page, model, ownersResults);
+		addPaginationModel(page, model, ownersResults);
+		return PartialViewInterceptor.view(request, "owners/ownersList", "results");
 	}
 
-	private String addPaginationModel(int page, Model model, Page<Owner> paginated) {
+	private void addPaginationModel(int page, Model model, Page<Owner> paginated) {
 		List<Owner> listOwners = paginated.getContent();
 		model.addAttribute("currentPage", page);
 		model.addAttribute("totalPages", paginated.getTotalPages());
 		model.addAttribute("totalItems", paginated.getTotalElements());
 		model.addAttribute("listOwners", listOwners);
-		return "owners/ownersList";
 	}
 
 	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
 		int pageSize = 5;
 		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastNameStartingWith(lastname, pageable);
+		return this.ownerService.findOwners(lastname, pageable);
 	}
 
 	@GetMapping("/owners/{ownerId}/edit")
@@ -144,10 +163,10 @@ class OwnerController {
 
 	@PostMapping("/owners/{ownerId}/edit")
 	public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result, @PathVariable("ownerId") int ownerId,
-			RedirectAttributes redirectAttributes) {
+			RedirectAttributes redirectAttributes, HttpServletRequest request) {
 		if (result.hasErrors()) {
 			redirectAttributes.addFlashAttribute("error", "There was an error in updating the owner.");
-			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+			return PartialViewInterceptor.view(request, VIEWS_OWNER_CREATE_OR_UPDATE_FORM, "form");
 		}
 
 		if (!Objects.equals(owner.getId(), ownerId)) {
@@ -156,24 +175,29 @@ class OwnerController {
 			return "redirect:/owners/{ownerId}/edit";
 		}
 
-		owner.setId(ownerId);
-		this.owners.save(owner);
+		try {
+			this.ownerService.updateOwner(ownerId, owner);
+		}
+		catch (OptimisticLockingFailureException ex) {
+			redirectAttributes.addFlashAttribute("error",
+					"This owner was changed by someone else. Please review the current values and submit again.");
+			return "redirect:/owners/{ownerId}/edit";
+		}
 		redirectAttributes.addFlashAttribute("message", "Owner Values Updated");
 		return "redirect:/owners/{ownerId}";
 	}
 
 	/**
-	 * Custom handler for displaying an owner.
-	 * @param ownerId the ID of the owner to display
+	 * Custom handler for displaying an owner, with the most recent visits of each pet;
+	 * older visits are loaded on demand.
+	 * @param owner the owner to display, as loaded by {@link #findOwner}
 	 * @return a ModelMap with the model attributes for the view
 	 */
 	@GetMapping("/owners/{ownerId}")
-	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
+	public ModelAndView showOwner(@ModelAttribute(name = "owner", binding = false) Owner owner) {
 		ModelAndView mav = new ModelAndView("owners/ownerDetails");
-		Optional<Owner> optionalOwner = this.owners.findById(ownerId);
-		Owner owner = optionalOwner.orElseThrow(() -> new IllegalArgumentException(
-				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
 		mav.addObject(owner);
+		mav.addObject("recentVisits", this.visitService.findRecentVisits(owner.getId()));
 		return mav;
 	}
 
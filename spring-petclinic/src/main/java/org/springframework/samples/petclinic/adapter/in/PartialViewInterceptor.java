@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.view.RedirectView;
+import org.springframework.web.servlet.view.UrlBasedViewResolver;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Supports partial page updates driven by the <code>HX-Request</code> header that htmx
+ * sends with every request it issues.
+ * <p>
+ * Controllers pick the fragment to render through {@link #view}: a partial request gets
+ * only the named Thymeleaf fragment (for example the result table of a paged list, or a
+ * form with its validation errors) instead of the whole layout. Redirects answering a
+ * partial request are turned into an <code>HX-Redirect</code> header, so the browser
+ * loads the next page as a regular navigation rather than swapping it into a fragment.
+ * </p>
+ */
+class PartialViewInterceptor implements HandlerInterceptor {
+
+	static final String REQUEST_HEADER = "HX-Request";
+
+	static final String REDIRECT_HEADER = "HX-Redirect";
+
+	private static final String HISTORY_RESTORE_HEADER = "HX-History-Restore-Request";
+
+	/**
+	 * Return the view to render for the current request.
+	 * @param request the current request
+	 * @param view the full-page view name
+	 * @param fragment the fragment of that view to render for partial requests
+	 * @return <code>view :: fragment</code> for partial requests, the view otherwise
+	 */
+	static String view(HttpServletRequest request, String view, String fragment) {
+		return isPartial(request) ? view + " :: " + fragment : view;
+	}
+
+	static boolean isPartial(HttpServletRequest request) {
+		// history restores replace the whole page and need the full layout
+		return "true".equals(request.getHeader(REQUEST_HEADER))
+				&& !"true".equals(request.getHeader(HISTORY_RESTORE_HEADER));
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		response.addHeader(HttpHeaders.VARY, REQUEST_HEADER);
+		return true;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+			ModelAndView modelAndView) {
+		if (modelAndView == null || !isPartial(request)) {
+			return;
+		}
+		String viewName = modelAndView.getViewName();
+		if (viewName != null && viewName.startsWith(UrlBasedViewResolver.REDIRECT_URL_PREFIX)) {
+			modelAndView.setView(
+					new PartialRedirectView(viewName.substring(UrlBasedViewResolver.REDIRECT_URL_PREFIX.length())));
+		}
+	}
+
+	/**
+	 * {@link RedirectView} that still saves flash attributes and expands URI variables,
+	 * but tells htmx to navigate instead of sending a 302 it would follow silently.
+	 */
+	private static class PartialRedirectView extends RedirectView {
+
+		PartialRedirectView(String url) {
+			super(url, true);
+		}
+
+		@Override
+		protected void sendRedirect(HttpServletRequest request, HttpServletResponse response, String targetUrl,
+				boolean http10Compatible) throws IOException {
+			response.setHeader(REDIRECT_HEADER, response.encodeRedirectURL(targetUrl));
+		}
+
+	}
+
+}
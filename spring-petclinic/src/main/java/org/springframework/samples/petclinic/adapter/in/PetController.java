@@ -18,17 +18,18 @@ package org.springframework.samples.petclinic.adapter.in;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Objects;
-import java.util.Optional;
 
-import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.samples.petclinic.adapter.out.PetTypeRepository;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.domain.DuplicatePetNameException;
 import org.springframework.samples.petclinic.domain.PetValidator;
 import org.springframework.samples.petclinic.domain.Owner;
 import org.springframework.samples.petclinic.domain.Pet;
+import org.springframework.samples.petclinic.domain.PetNotFoundException;
 import org.springframework.samples.petclinic.domain.PetType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
-import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
@@ -39,6 +40,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
@@ -55,13 +57,13 @@ class PetController {
 
 	private static final String VIEWS_PETS_CREATE_OR_UPDATE_FORM = "pets/createOrUpdatePetForm";
 
-	private final OwnerRepository owners;
-
 	private final PetTypeRepository types;
 
-	public PetController(OwnerRepository owners, PetTypeRepository types) {
-		this.owners = owners;
+	private final OwnerService ownerService;
+
+	public PetController(PetTypeRepository types, OwnerService ownerService) {
 		this.types = types;
+		this.ownerService = ownerService;
 	}
 
 	@ModelAttribute("types")
@@ -69,119 +71,109 @@ class PetController {
 		return this.types.findPetTypes();
 	}
 
-	@ModelAttribute("owner")
-	public Owner findOwner(@PathVariable("ownerId") int ownerId) {
-		Optional<Owner> optionalOwner = this.owners.findById(ownerId);
-		Owner owner = optionalOwner.orElseThrow(() -> new IllegalArgumentException(
-				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
-		return owner;
-	}
-
-	@ModelAttribute("pet")
-	public Pet findPet(@PathVariable("ownerId") int ownerId,
-			@PathVariable(name = "petId", required = false) Integer petId) {
-
-		if (petId == null) {
-			return new Pet();
-		}
-
-		Optional<Owner> optionalOwner = this.owners.findById(ownerId);
-		Owner owner = optionalOwner.orElseThrow(() -> new IllegalArgumentException(
-				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
-		return owner.getPet(petId);
-	}
-
-	@InitBinder("owner")
-	public void initOwnerBinder(WebDataBinder dataBinder) {
-		dataBinder.setDisallowedFields("id");
-	}
-
 	@InitBinder("pet")
 	public void initPetBinder(WebDataBinder dataBinder) {
+		dataBinder.setDisallowedFields("id");
 		dataBinder.setValidator(new PetValidator());
 	}
 
 	@GetMapping("/pets/new")
-	public String initCreationForm(Owner owner, ModelMap model) {
+	public String initCreationForm(@PathVariable("ownerId") int ownerId, ModelMap model) {
+		Owner owner = this.ownerService.findOwner(ownerId);
 		Pet pet = new Pet();
 		owner.addPet(pet);
+		model.put("owner", owner);
+		model.put("pet", pet);
 		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
 	}
 
 	@PostMapping("/pets/new")
-	public String processCreationForm(Owner owner, @Valid Pet pet, BindingResult result,
-			RedirectAttributes redirectAttributes) {
-
-		if (StringUtils.hasText(pet.getName()) && pet.isNew() && owner.getPet(pet.getName(), true) != null)
-			result.rejectValue("name", "duplicate", "already exists");
-
-		LocalDate currentDate = LocalDate.now();
-		if (pet.getBirthDate() != null && pet.getBirthDate().isAfter(currentDate)) {
-			result.rejectValue("birthDate", "typeMismatch.birthDate");
-		}
-
-		if (result.hasErrors()) {
-			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+	public String processCreationForm(@PathVariable("ownerId") int ownerId, @Valid Pet pet, BindingResult result,
+			ModelMap model, RedirectAttributes redirectAttributes, HttpServletRequest request) {
+		checkBirthDate(pet, result);
+		if (!result.hasErrors()) {
+			try {
+				this.ownerService.addPet(ownerId, pet);
+				redirectAttributes.addFlashAttribute("message", "New Pet has been Added");
+				return "redirect:/owners/{ownerId}";
+			}
+			catch (DuplicatePetNameException ex) {
+				result.rejectValue("name", "duplicate", "already exists");
+			}
+			catch (OptimisticLockingFailureException ex) {
+				redirectAttributes.addFlashAttribute("error",
+						"This owner was changed by someone else. Please submit the new pet again.");
+				return "redirect:/owners/{ownerId}/pets/new";
+			}
 		}
-
-		owner.addPet(pet);
-		this.owners.save(owner);
-		redirectAttributes.addFlashAttribute("message", "New Pet has been Added");
-		return "redirect:/owners/{ownerId}";
+		return showForm(ownerId, pet, result, model, request);
 	}
 
 	@GetMapping("/pets/{petId}/edit")
-	public String initUpdateForm() {
+	public String initUpdateForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			ModelMap model) {
+		Owner owner = this.ownerService.findOwner(ownerId);
+		Pet pet = owner.getPet(petId);
+		if (pet == null) {
+			throw new PetNotFoundException(ownerId, petId);
+		}
+		model.put("owner", owner);
+		model.put("pet", pet);
 		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
 	}
 
 	@PostMapping("/pets/{petId}/edit")
-	public String processUpdateForm(Owner owner, @Valid Pet pet, BindingResult result,
-			RedirectAttributes redirectAttributes) {
-
-		String petName = pet.getName();
-
-		// checking if the pet name already exists for the owner
-		if (StringUtils.hasText(petName)) {
-			Pet existingPet = owner.getPet(petName, false);
-			if (existingPet != null && !Objects.equals(existingPet.getId(), pet.getId())) {
+	public String processUpdateForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@Valid Pet pet, BindingResult result, ModelMap model, RedirectAttributes redirectAttributes,
+			HttpServletRequest request) {
+		pet.setId(petId);
+		checkBirthDate(pet, result);
+		if (!result.hasErrors()) {
+			try {
+				this.ownerService.updatePet(ownerId, pet);
+				redirectAttributes.addFlashAttribute("message", "Pet details has been edited");
+				return "redirect:/owners/{ownerId}";
+			}
+			catch (DuplicatePetNameException ex) {
 				result.rejectValue("name", "duplicate", "already exists");
 			}
+			catch (OptimisticLockingFailureException ex) {
+				redirectAttributes.addFlashAttribute("error",
+						"This pet was changed by someone else. Please review the current values and submit again.");
+				return "redirect:/owners/{ownerId}/pets/{petId}/edit";
+			}
 		}
+		return showForm(ownerId, pet, result, model, request);
+	}
 
+	private static void checkBirthDate(Pet pet, BindingResult result) {
 		LocalDate currentDate = LocalDate.now();
 		if (pet.getBirthDate() != null && pet.getBirthDate().isAfter(currentDate)) {
 			result.rejectValue("birthDate", "typeMismatch.birthDate");
 		}
-
-		if (result.hasErrors()) {
-			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
-		}
-
-		updatePetDetails(owner, pet);
-		redirectAttributes.addFlashAttribute("message", "Pet details has been edited");
-		return "redirect:/owners/{ownerId}";
 	}
 
 	/**
-	 * Updates the pet details if it exists or adds a new pet to the owner.
-	 * @param owner The owner of the pet
-	 * @param pet The pet with updated details
+	 * Render the form again with the submitted pet. Only this path loads the owner; a
+	 * successful submission leaves loading and checking to the service.
+	 * @param ownerId the owner of the pet
+	 * @param pet the submitted pet
+	 * @param result the binding result of the pet
+	 * @param model the model to expose the owner to
+	 * @param request the current request
+	 * @return the form view
 	 */
-	private void updatePetDetails(Owner owner, Pet pet) {
-		Integer id = pet.getId();
-		Assert.state(id != null, "'pet.getId()' must not be null");
-		Pet existingPet = owner.getPet(id);
-		if (existingPet != null) {
-			// Update existing pet's properties
-			existingPet.setName(pet.getName());
-			existingPet.setBirthDate(pet.getBirthDate());
-			existingPet.setType(pet.getType());
-		}
-		else {
-			owner.addPet(pet);
+	private String showForm(int ownerId, Pet pet, BindingResult result, ModelMap model, HttpServletRequest request) {
+		Owner owner = this.ownerService.findOwner(ownerId);
+		// report a duplicate name together with the other errors of the form
+		if (!result.hasFieldErrors("name") && StringUtils.hasText(pet.getName())) {
+			Pet existingPet = owner.getPet(pet.getName(), false);
+			if (existingPet != null && !Objects.equals(existingPet.getId(), pet.getId())) {
+				result.rejectValue("name", "duplicate", "already exists");
+			}
 		}
-		this.owners.save(owner);
+		model.put("owner", owner);
+		return PartialViewInterceptor.view(request, VIEWS_PETS_CREATE_OR_UPDATE_FORM, "form");
 	}
 
 }
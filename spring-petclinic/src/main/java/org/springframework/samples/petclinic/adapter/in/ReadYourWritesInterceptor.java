@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.samples.petclinic.adapter.out.ReadYourWrites;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Lets clients read their own writes while replicas catch up: a request that may write
+ * marks its client with a short-lived cookie, and as long as the cookie lasts, including
+ * the redirect that follows a form submission, the client reads from the primary.
+ */
+class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+	static final String COOKIE_NAME = "petclinic-wrote";
+
+	private final Duration window;
+
+	ReadYourWritesInterceptor(Duration window) {
+		this.window = window;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		HttpMethod method = HttpMethod.valueOf(request.getMethod());
+		boolean writes = method != HttpMethod.GET && method != HttpMethod.HEAD && method != HttpMethod.OPTIONS;
+		if (writes) {
+			String path = StringUtils.hasLength(request.getContextPath()) ? request.getContextPath() : "/";
+			ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, "1")
+				.path(path)
+				.maxAge(Duration.ofSeconds(this.window.toSeconds() + 1))
+				.httpOnly(true)
+				.secure(request.isSecure())
+				.sameSite("Lax")
+				.build();
+			response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+		}
+		if (writes || WebUtils.getCookie(request, COOKIE_NAME) != null) {
+			ReadYourWrites.requirePrimary();
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		ReadYourWrites.reset();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		ReadYourWrites.reset();
+	}
+
+}
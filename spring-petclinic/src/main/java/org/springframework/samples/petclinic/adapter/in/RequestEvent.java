@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a request handled by a controller method, recorded by the
+ * {@link RequestEventInterceptor}.
+ */
+@Name("org.springframework.samples.petclinic.Request")
+@Label("Request")
+@Category({ "Pet Clinic", "Web" })
+@Description("Request handled by a controller method")
+@StackTrace(false)
+class RequestEvent extends Event {
+
+	@Label("Endpoint")
+	@Description("Controller method that handled the request, e.g. OwnerController.showOwner")
+	String endpoint;
+
+	@Label("HTTP Method")
+	String method;
+
+	@Label("URI Template")
+	String uri;
+
+	@Label("Owner Id")
+	@Description("Owner the request is about, 0 if none")
+	int ownerId;
+
+	@Label("Status")
+	int status;
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.util.Map;
+
+import jdk.jfr.EventType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records a {@link RequestEvent} for every request handled by a controller method while a
+ * flight recording that enables it is running; otherwise the interceptor only checks
+ * whether the event is enabled. Requests going asynchronous, such as the change stream,
+ * are not recorded.
+ */
+class RequestEventInterceptor implements AsyncHandlerInterceptor {
+
+	private static final EventType REQUEST_EVENTS = EventType.getEventType(RequestEvent.class);
+
+	private static final String EVENT_ATTRIBUTE = RequestEventInterceptor.class.getName() + ".event";
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (REQUEST_EVENTS.isEnabled() && handler instanceof HandlerMethod) {
+			RequestEvent event = new RequestEvent();
+			event.begin();
+			request.setAttribute(EVENT_ATTRIBUTE, event);
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		request.removeAttribute(EVENT_ATTRIBUTE);
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		if (!(request.getAttribute(EVENT_ATTRIBUTE) instanceof RequestEvent event)) {
+			return;
+		}
+		request.removeAttribute(EVENT_ATTRIBUTE);
+		event.end();
+		if (event.shouldCommit()) {
+			event.endpoint = EndpointObservationConvention.endpoint((HandlerMethod) handler);
+			event.method = request.getMethod();
+			event.uri = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			event.ownerId = ownerId(request);
+			event.status = response.getStatus();
+			event.commit();
+		}
+	}
+
+	private static int ownerId(HttpServletRequest request) {
+		if (request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables
+				&& variables.get("ownerId") instanceof String ownerId) {
+			try {
+				return Integer.parseInt(ownerId);
+			}
+			catch (NumberFormatException ex) {
+				// not an owner, answered with 400
+			}
+		}
+		return 0;
+	}
+
+}
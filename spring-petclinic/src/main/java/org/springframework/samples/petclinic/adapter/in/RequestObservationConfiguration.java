@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+
+/**
+ * Tags the <code>http.server.requests</code> observations with the controller method that
+ * handled the request.
+ */
+@Configuration(proxyBeanMethods = false)
+class RequestObservationConfiguration {
+
+	/**
+	 * Adds the handling controller method as <code>endpoint</code> tag to the
+	 * <code>http.server.requests</code> observations.
+	 * @return {@link ServerRequestObservationConvention} tagging the endpoint
+	 */
+	@Bean
+	ServerRequestObservationConvention serverRequestObservationConvention() {
+		return new EndpointObservationConvention();
+	}
+
+}
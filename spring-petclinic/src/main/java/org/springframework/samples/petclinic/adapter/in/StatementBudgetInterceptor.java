@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.samples.petclinic.adapter.out.StatementBudgetExceededException;
+import org.springframework.samples.petclinic.adapter.out.StatementTally;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps requests within a budget of SQL statements: every request counts its statements
+ * with a {@link StatementTally}, and one running more than the budget is logged, or, when
+ * rejecting, fails with a {@link StatementBudgetExceededException} at the first statement
+ * over it. Statements run at least <code>maxRepeats</code> times in one request are
+ * logged as likely N+1 selects.
+ * <p>
+ * The number of statements of a request is left in its {@link #STATEMENTS_ATTRIBUTE}.
+ * </p>
+ */
+class StatementBudgetInterceptor implements AsyncHandlerInterceptor {
+
+	static final String STATEMENTS_ATTRIBUTE = StatementBudgetInterceptor.class.getName() + ".statements";
+
+	private static final String TALLY_ATTRIBUTE = StatementBudgetInterceptor.class.getName() + ".tally";
+
+	private static final Log logger = LogFactory.getLog(StatementBudgetInterceptor.class);
+
+	private final int maxStatements;
+
+	private final int maxRepeats;
+
+	private final boolean reject;
+
+	StatementBudgetInterceptor(int maxStatements, int maxRepeats, boolean reject) {
+		this.maxStatements = maxStatements;
+		this.maxRepeats = maxRepeats;
+		this.reject = reject;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		request.setAttribute(TALLY_ATTRIBUTE, StatementTally.start(this.reject ? this.maxStatements : -1));
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		stop(request);
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		StatementTally tally = stop(request);
+		if (tally == null) {
+			return;
+		}
+		request.setAttribute(STATEMENTS_ATTRIBUTE, tally.getStatements());
+		if (tally.getStatements() > this.maxStatements) {
+			logger.warn(request.getMethod() + " " + request.getRequestURI() + " ran " + tally.getStatements()
+					+ " statements, over the budget of " + this.maxStatements);
+		}
+		tally.getRepeatedStatements(this.maxRepeats)
+			.forEach((statement, executions) -> logger.warn(request.getMethod() + " " + request.getRequestURI()
+					+ " ran the same statement " + executions + " times, likely N+1 selects: " + statement));
+	}
+
+	private StatementTally stop(HttpServletRequest request) {
+		if (request.getAttribute(TALLY_ATTRIBUTE) instanceof StatementTally tally) {
+			request.removeAttribute(TALLY_ATTRIBUTE);
+			tally.stop();
+			return tally;
+		}
+		return null;
+	}
+
+}
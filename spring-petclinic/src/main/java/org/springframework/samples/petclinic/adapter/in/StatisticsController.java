@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import org.springframework.samples.petclinic.adapter.out.StatisticsCounters;
+import org.springframework.samples.petclinic.domain.ClinicStatistics;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Shows the clinic statistics, read from the counters kept up to date with every write,
+ * as a page and as JSON.
+ */
+@Controller
+class StatisticsController {
+
+	private final StatisticsCounters statistics;
+
+	StatisticsController(StatisticsCounters statistics) {
+		this.statistics = statistics;
+	}
+
+	@GetMapping("/statistics.html")
+	public String showStatistics(Model model) {
+		model.addAttribute("statistics", this.statistics.read());
+		return "statistics/clinicStatistics";
+	}
+
+	@GetMapping("/statistics")
+	public @ResponseBody ClinicStatistics showResourcesStatistics() {
+		return this.statistics.read();
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.in;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, time-expiring store of the idempotency tokens of form submissions, each mapped
+ * to the redirect its submission answered with.
+ * <p>
+ * Tokens expire in the order they were first seen, so a FIFO queue next to the map is
+ * enough to find the expired ones; it is also what bounds the store: once it holds
+ * <code>maxTokens</code> tokens, the oldest token is dropped even if it has not expired.
+ * </p>
+ */
+class SubmissionTokens {
+
+	private final Map<String, Submission> submissions = new ConcurrentHashMap<>();
+
+	private final Queue<Submission> order = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final int maxTokens;
+
+	private final Duration timeToLive;
+
+	private final Clock clock;
+
+	SubmissionTokens(int maxTokens, Duration timeToLive) {
+		this(maxTokens, timeToLive, Clock.systemUTC());
+	}
+
+	SubmissionTokens(int maxTokens, Duration timeToLive, Clock clock) {
+		this.maxTokens = maxTokens;
+		this.timeToLive = timeToLive;
+		this.clock = clock;
+	}
+
+	/**
+	 * Record the first submission of a token.
+	 * @param token the submitted token
+	 * @return <code>null</code> if the token is new and the caller handles the
+	 * submission, otherwise the redirect of the earlier submission; it completes with
+	 * <code>null</code> if that submission did not end in a redirect
+	 */
+	CompletableFuture<String> begin(String token) {
+		long now = this.clock.millis();
+		evict(now);
+		Submission submission = new Submission(token, now + this.timeToLive.toMillis());
+		Submission existing = this.submissions.putIfAbsent(token, submission);
+		if (existing != null && !existing.isExpired(now)) {
+			return existing.redirect;
+		}
+		if (existing != null) {
+			this.submissions.replace(token, existing, submission);
+		}
+		this.order.add(submission);
+		this.queued.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Remember the redirect a submission answered with, for replays of its token.
+	 * @param token the submitted token
+	 * @param redirect the redirect URL
+	 */
+	void complete(String token, String redirect) {
+		Submission submission = this.submissions.get(token);
+		if (submission != null) {
+			submission.redirect.complete(redirect);
+		}
+	}
+
+	/**
+	 * Forget a token whose submission did not succeed, so it can be submitted again.
+	 * @param token the submitted token
+	 */
+	void release(String token) {
+		Submission submission = this.submissions.remove(token);
+		if (submission != null) {
+			if (this.order.remove(submission)) {
+				this.queued.decrementAndGet();
+			}
+			submission.redirect.complete(null);
+		}
+	}
+
+	int size() {
+		return this.submissions.size();
+	}
+
+	private void evict(long now) {
+		Submission oldest;
+		while ((oldest = this.order.peek()) != null && (oldest.isExpired(now) || this.queued.get() >= this.maxTokens)) {
+			if (this.order.remove(oldest)) {
+				this.queued.decrementAndGet();
+				this.submissions.remove(oldest.token, oldest);
+				oldest.redirect.complete(null);
+			}
+		}
+	}
+
+	private static final class Submission {
+
+		private final String token;
+
+		private final long expiresAt;
+
+		private final CompletableFuture<String> redirect = new CompletableFuture<>();
+
+		private Submission(String token, long expiresAt) {
+			this.token = token;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpired(long now) {
+			return now >= this.expiresAt;
+		}
+
+	}
+
+}
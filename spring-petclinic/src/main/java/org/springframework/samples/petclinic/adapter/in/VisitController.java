@@ -15,22 +15,27 @@
  */
 package org.springframework.samples.petclinic.adapter.in;
 
-import java.util.Map;
-import java.util.Optional;
+import java.time.LocalDate;
 
-import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.application.VisitService;
 import org.springframework.samples.petclinic.domain.Owner;
 import org.springframework.samples.petclinic.domain.Pet;
+import org.springframework.samples.petclinic.domain.PetNotFoundException;
 import org.springframework.samples.petclinic.domain.Visit;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.InitBinder;
-import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
@@ -45,10 +50,13 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 @Controller
 class VisitController {
 
-	private final OwnerRepository owners;
+	private final OwnerService owners;
 
-	public VisitController(OwnerRepository owners) {
+	private final VisitService visits;
+
+	public VisitController(OwnerService owners, VisitService visits) {
 		this.owners = owners;
+		this.visits = visits;
 	}
 
 	@InitBinder
@@ -57,50 +65,85 @@ class VisitController {
 	}
 
 	/**
-	 * Called before each and every @RequestMapping annotated method. 2 goals: - Make sure
-	 * we always have fresh data - Since we do not use the session scope, make sure that
-	 * Pet object always has an id (Even though id is not part of the form fields)
-	 * @param petId
-	 * @return Pet
+	 * Loads the owner and the pet shown next to the visit form. Booking itself does not
+	 * need them, so this only runs when the form is rendered.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet the visit is for
+	 * @param model the model to expose <code>owner</code> and <code>pet</code> to
+	 * @return the pet
 	 */
-	@ModelAttribute("visit")
-	public Visit loadPetWithVisit(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
-			Map<String, Object> model) {
-		Optional<Owner> optionalOwner = owners.findById(ownerId);
-		Owner owner = optionalOwner.orElseThrow(() -> new IllegalArgumentException(
-				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
-
+	private Pet loadPet(int ownerId, int petId, Model model) {
+		Owner owner = this.owners.findOwner(ownerId);
 		Pet pet = owner.getPet(petId);
 		if (pet == null) {
-			throw new IllegalArgumentException(
-					"Pet with id " + petId + " not found for owner with id " + ownerId + ".");
+			throw new PetNotFoundException(ownerId, petId);
 		}
-		model.put("pet", pet);
-		model.put("owner", owner);
-
-		Visit visit = new Visit();
-		pet.addVisit(visit);
-		return visit;
+		model.addAttribute("pet", pet);
+		model.addAttribute("owner", owner);
+		return pet;
 	}
 
-	// Spring MVC calls method loadPetWithVisit(...) before initNewVisitForm is
-	// called
 	@GetMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String initNewVisitForm() {
+	public String initNewVisitForm(@PathVariable int ownerId, @PathVariable int petId, Model model) {
+		loadPet(ownerId, petId, model);
+		model.addAttribute("visits", this.visits.findRecentVisits(ownerId, petId));
+		model.addAttribute("visit", new Visit());
 		return "pets/createOrUpdateVisitForm";
 	}
 
-	// Spring MVC calls method loadPetWithVisit(...) before processNewVisitForm is
-	// called
+	/**
+	 * Shows a page of the visit history of a pet, the most recent visits or those before
+	 * the given one; a partial request gets the table rows only, to be added to the
+	 * visits shown already.
+	 */
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	public String showVisits(@PathVariable int ownerId, @PathVariable int petId,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate beforeDate,
+			@RequestParam(required = false) Integer beforeId, Model model, HttpServletRequest request) {
+		if (!PartialViewInterceptor.isPartial(request)) {
+			loadPet(ownerId, petId, model);
+		}
+		if (beforeId != null) {
+			model.addAttribute("visits", this.visits.findVisitsBefore(ownerId, petId, beforeDate, beforeId));
+		}
+		else {
+			model.addAttribute("visits", this.visits.findRecentVisits(ownerId, petId));
+		}
+		model.addAttribute("ownerId", ownerId);
+		model.addAttribute("petId", petId);
+		return PartialViewInterceptor.view(request, "pets/visitHistory", "rows");
+	}
+
+	/**
+	 * Shows the archived visits of a pet; a partial request gets the table rows only, to
+	 * be added to the visits on the owner page.
+	 */
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits/archived")
+	public String showArchivedVisits(@PathVariable int ownerId, @PathVariable int petId, Model model,
+			HttpServletRequest request) {
+		if (!PartialViewInterceptor.isPartial(request)) {
+			loadPet(ownerId, petId, model);
+		}
+		model.addAttribute("visits", this.visits.findArchivedVisits(ownerId, petId));
+		return PartialViewInterceptor.view(request, "pets/archivedVisits", "rows");
+	}
+
 	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String processNewVisitForm(@ModelAttribute Owner owner, @PathVariable int petId, @Valid Visit visit,
-			BindingResult result, RedirectAttributes redirectAttributes) {
+	public String processNewVisitForm(@PathVariable int ownerId, @PathVariable int petId, @Valid Visit visit,
+			BindingResult result, Model model, RedirectAttributes redirectAttributes, HttpServletRequest request) {
+		// visits recorded before dates were required may have none, a new booking must
+		if (visit.getDate() == null && !result.hasFieldErrors("date")) {
+			result.rejectValue("date", "required", "is required");
+		}
 		if (result.hasErrors()) {
-			return "pets/createOrUpdateVisitForm";
+			loadPet(ownerId, petId, model);
+			if (!PartialViewInterceptor.isPartial(request)) {
+				model.addAttribute("visits", this.visits.findRecentVisits(ownerId, petId));
+			}
+			return PartialViewInterceptor.view(request, "pets/createOrUpdateVisitForm", "form");
 		}
 
-		owner.addVisit(petId, visit);
-		this.owners.save(owner);
+		this.visits.bookVisit(ownerId, petId, visit);
 		redirectAttributes.addFlashAttribute("message", "Your visit has been booked");
 		return "redirect:/owners/{ownerId}";
 	}
@@ -1,13 +1,17 @@
 package org.springframework.samples.petclinic.adapter.in;
 
+import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.i18n.CookieLocaleResolver;
 import org.springframework.web.servlet.i18n.LocaleChangeInterceptor;
-import org.springframework.web.servlet.i18n.SessionLocaleResolver;
 
+import java.time.Duration;
 import java.util.Locale;
 
 /**
@@ -24,15 +28,33 @@ import java.util.Locale;
 @SuppressWarnings("unused")
 public class WebConfiguration implements WebMvcConfigurer {
 
+	static final String LOCALE_COOKIE_NAME = "petclinic-lang";
+
+	/**
+	 * Compiles every bundle of <code>spring.messages.basename</code> at startup so that
+	 * templates resolve their keys with a single lookup per message.
+	 * @param environment the environment holding <code>spring.messages.basename</code>
+	 * @return precompiled {@link MessageSource}
+	 */
+	@Bean
+	public MessageSource messageSource(Environment environment) {
+		String basename = environment.getProperty("spring.messages.basename", "messages");
+		return new CompiledMessageSource(StringUtils.commaDelimitedListToStringArray(basename));
+	}
+
 	/**
-	 * Uses session storage to remember the user’s language setting across requests.
-	 * Defaults to English if nothing is specified.
-	 * @return session-based {@link LocaleResolver}
+	 * Remembers the user’s language setting in a cookie so that no HTTP session is
+	 * created and any replica can serve the next request. Without a cookie the browser's
+	 * <code>Accept-Language</code> header is used, and English if that is missing too.
+	 * @return cookie-based {@link LocaleResolver}
 	 */
 	@Bean
 	public LocaleResolver localeResolver() {
-		SessionLocaleResolver resolver = new SessionLocaleResolver();
-		resolver.setDefaultLocale(Locale.ENGLISH);
+		CookieLocaleResolver resolver = new CookieLocaleResolver(LOCALE_COOKIE_NAME);
+		resolver.setCookieMaxAge(Duration.ofDays(365));
+		resolver.setCookieHttpOnly(true);
+		resolver.setDefaultLocaleFunction(
+				request -> request.getHeader("Accept-Language") != null ? request.getLocale() : Locale.ENGLISH);
 		return resolver;
 	}
 
@@ -16,8 +16,12 @@
 
 package org.springframework.samples.petclinic.adapter.out;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.cache.autoconfigure.JCacheManagerCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -26,15 +30,31 @@ import javax.cache.configuration.MutableConfiguration;
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
  * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * accessible via JMX. Cached methods look their caches up through a
+ * {@link FlightRecordingCacheResolver}, so flight recordings show every cache hit and
+ * miss.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
-class CacheConfiguration {
+class CacheConfiguration implements CachingConfigurer {
+
+	private final ObjectProvider<CacheManager> cacheManager;
+
+	CacheConfiguration(ObjectProvider<CacheManager> cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	@Override
+	public CacheResolver cacheResolver() {
+		return new FlightRecordingCacheResolver(this.cacheManager::getObject);
+	}
 
 	@Bean
 	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
-		return cm -> cm.createCache("vets", cacheConfiguration());
+		return cm -> {
+			cm.createCache("vets", cacheConfiguration());
+			cm.createCache("petTypes", cacheConfiguration());
+		};
 	}
 
 	/**
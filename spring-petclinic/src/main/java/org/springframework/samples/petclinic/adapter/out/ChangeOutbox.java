@@ -0,0 +1,222 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.samples.petclinic.domain.ChangeEvent;
+import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.samples.petclinic.domain.Pet;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+import tools.jackson.databind.util.RawValue;
+
+/**
+ * Transactional outbox of the change feed.
+ * <p>
+ * Every write to owners, pets and visits records a change event in the
+ * <code>change_events</code> table, in the same transaction as the write itself; the
+ * <code>record</code> methods refuse to run outside of one. Events are committed or
+ * rolled back together with the change they describe, so the feed never shows a change
+ * that did not happen and never misses one that did.
+ * </p>
+ * <p>
+ * Ids are handed out when an event is inserted, but transactions commit in a different
+ * order, so they cannot serve as feed offsets. The {@link ChangeRelay} therefore assigns
+ * offsets in commit order, by {@link #relay numbering} the committed events that have
+ * none yet. The last offset handed out is kept in the <code>change_feed_offset</code>
+ * row, so that the numbering carries on when purging has emptied the table; relays on
+ * several instances lock that row and take turns.
+ * </p>
+ */
+@Repository
+public class ChangeOutbox {
+
+	private static final String NUMBER = "UPDATE change_events SET feed_offset = ? WHERE id = ? AND feed_offset IS NULL";
+
+	private static final JsonMapper json = JsonMapper.builder().build();
+
+	private static final RowMapper<ChangeEvent> ROW_MAPPER = (rs, rowNum) -> new ChangeEvent(rs.getLong("feed_offset"),
+			rs.getString("aggregate"), rs.getInt("aggregate_id"), rs.getString("type"), rs.getString("payload"),
+			rs.getTimestamp("created_at").toInstant());
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public ChangeOutbox(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void ownerCreated(Owner owner) {
+		record("owner", owner.getId(), "created", snapshot(owner));
+	}
+
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void ownerUpdated(Owner owner) {
+		record("owner", owner.getId(), "updated", snapshot(owner));
+	}
+
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void petCreated(int ownerId, Pet pet) {
+		record("pet", pet.getId(), "created", snapshot(ownerId, pet));
+	}
+
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void petUpdated(int ownerId, Pet pet) {
+		record("pet", pet.getId(), "updated", snapshot(ownerId, pet));
+	}
+
+	/**
+	 * Record a visit booked for a pet. Visits are inserted without reading back their id,
+	 * so the event belongs to the pet.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet the visit is for
+	 * @param date the date of the visit
+	 * @param description the description of the visit
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void visitBooked(int ownerId, int petId, LocalDate date, String description) {
+		Map<String, Object> payload = new LinkedHashMap<>();
+		payload.put("ownerId", ownerId);
+		payload.put("petId", petId);
+		payload.put("date", date);
+		payload.put("description", description);
+		record("pet", petId, "visit-booked", payload);
+	}
+
+	/**
+	 * Assign feed offsets to the oldest committed events that have none yet.
+	 * @param limit the maximum number of events to number
+	 * @return the number of events that were numbered
+	 */
+	@Transactional
+	public int relay(int limit) {
+		// held until commit, so concurrent relays number one after the other
+		long offset = this.jdbcTemplate.queryForObject("SELECT last_offset FROM change_feed_offset FOR UPDATE",
+				Long.class);
+		List<Long> ids = this.jdbcTemplate.queryForList(
+				"SELECT id FROM change_events WHERE feed_offset IS NULL ORDER BY id LIMIT ?", Long.class, limit);
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		List<Object[]> args = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			args.add(new Object[] { ++offset, id });
+		}
+		for (int count : this.jdbcTemplate.batchUpdate(NUMBER, args)) {
+			if (count == 0) {
+				throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(NUMBER, 1, count);
+			}
+		}
+		this.jdbcTemplate.update("UPDATE change_feed_offset SET last_offset = ?", offset);
+		return ids.size();
+	}
+
+	/**
+	 * Return the offset of the newest event on the feed.
+	 * @return the last offset, <code>0</code> if the feed is empty
+	 */
+	@Transactional(readOnly = true)
+	public long lastOffset() {
+		return this.jdbcTemplate.queryForObject("SELECT last_offset FROM change_feed_offset", Long.class);
+	}
+
+	/**
+	 * Return the events following the given offset, in feed order.
+	 * @param offset the last offset the consumer has seen, <code>0</code> to start at the
+	 * beginning
+	 * @param limit the maximum number of events to return
+	 * @return the next events on the feed
+	 */
+	@Transactional(readOnly = true)
+	public List<ChangeEvent> readAfter(long offset, int limit) {
+		return this.jdbcTemplate.query("""
+				SELECT feed_offset, aggregate, aggregate_id, type, payload, created_at
+				FROM change_events WHERE feed_offset > ? ORDER BY feed_offset LIMIT ?""", ROW_MAPPER, offset, limit);
+	}
+
+	/**
+	 * Delete relayed events created before the given time. Consumers resuming at an
+	 * offset that has been deleted continue with the oldest remaining event, and new
+	 * events carry on from the last offset even if every event has been deleted.
+	 * @param before the oldest creation time to keep
+	 * @return the number of deleted events
+	 */
+	@Transactional
+	public int purge(Instant before) {
+		return this.jdbcTemplate.update("DELETE FROM change_events WHERE feed_offset IS NOT NULL AND created_at < ?",
+				Timestamp.from(before));
+	}
+
+	/**
+	 * Render an event as a JSON object, the way it is published on the feed.
+	 * @param event the event to render
+	 * @return the event as JSON, with its payload embedded as is
+	 */
+	public static String toJson(ChangeEvent event) {
+		ObjectNode node = json.createObjectNode()
+			.put("offset", event.offset())
+			.put("aggregate", event.aggregate())
+			.put("aggregateId", event.aggregateId())
+			.put("type", event.type())
+			.put("createdAt", event.createdAt().toString());
+		node.putRawValue("payload", new RawValue(event.payload()));
+		return json.writeValueAsString(node);
+	}
+
+	private void record(String aggregate, int aggregateId, String type, Map<String, Object> payload) {
+		this.jdbcTemplate.update(
+				"INSERT INTO change_events (aggregate, aggregate_id, type, payload, created_at) VALUES (?, ?, ?, ?, ?)",
+				aggregate, aggregateId, type, json.writeValueAsString(payload), Timestamp.from(Instant.now()));
+	}
+
+	private static Map<String, Object> snapshot(Owner owner) {
+		Map<String, Object> payload = new LinkedHashMap<>();
+		payload.put("id", owner.getId());
+		payload.put("firstName", owner.getFirstName());
+		payload.put("lastName", owner.getLastName());
+		payload.put("address", owner.getAddress());
+		payload.put("city", owner.getCity());
+		payload.put("telephone", owner.getTelephone());
+		return payload;
+	}
+
+	private static Map<String, Object> snapshot(int ownerId, Pet pet) {
+		Map<String, Object> payload = new LinkedHashMap<>();
+		payload.put("id", pet.getId());
+		payload.put("ownerId", ownerId);
+		payload.put("name", pet.getName());
+		payload.put("birthDate", pet.getBirthDate());
+		payload.put("type", (pet.getType() != null) ? pet.getType().getName() : null);
+		return payload;
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes committed outbox events on the change feed: every
+ * <code>petclinic.changes.relay-interval</code> it {@link ChangeOutbox#relay numbers} the
+ * events committed since the last run and notifies the listeners of the new last offset.
+ * Relayed events older than <code>petclinic.changes.retention</code> are purged once an
+ * hour.
+ */
+@Component
+public class ChangeRelay implements SmartLifecycle {
+
+	private static final int BATCH_SIZE = 500;
+
+	private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+
+	private static final Log logger = LogFactory.getLog(ChangeRelay.class);
+
+	private final ChangeOutbox outbox;
+
+	private final Duration interval;
+
+	private final Duration retention;
+
+	private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+
+	private ScheduledExecutorService executor;
+
+	private Instant nextPurge = Instant.now();
+
+	public ChangeRelay(ChangeOutbox outbox, Environment environment) {
+		this.outbox = outbox;
+		this.interval = environment.getProperty("petclinic.changes.relay-interval", Duration.class,
+				Duration.ofMillis(500));
+		this.retention = environment.getProperty("petclinic.changes.retention", Duration.class, Duration.ofDays(7));
+	}
+
+	/**
+	 * Register a listener that is called with the last offset of the feed whenever new
+	 * events have been relayed.
+	 * @param listener the listener to add
+	 */
+	public void addListener(LongConsumer listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * Relay all events committed so far.
+	 * @return the number of relayed events
+	 */
+	public synchronized int relay() {
+		int total = 0;
+		int relayed;
+		do {
+			relayed = this.outbox.relay(BATCH_SIZE);
+			total += relayed;
+		}
+		while (relayed == BATCH_SIZE);
+		if (total > 0) {
+			long offset = this.outbox.lastOffset();
+			this.listeners.forEach(listener -> listener.accept(offset));
+		}
+		Instant now = Instant.now();
+		if (now.isAfter(this.nextPurge)) {
+			this.nextPurge = now.plus(PURGE_INTERVAL);
+			this.outbox.purge(now.minus(this.retention));
+		}
+		return total;
+	}
+
+	@Override
+	public synchronized void start() {
+		if (this.executor == null) {
+			this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory());
+			this.executor.scheduleWithFixedDelay(this::relayQuietly, this.interval.toMillis(), this.interval.toMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void stop() {
+		ScheduledExecutorService executor;
+		synchronized (this) {
+			executor = this.executor;
+			this.executor = null;
+		}
+		if (executor != null) {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return this.executor != null;
+	}
+
+	private void relayQuietly() {
+		try {
+			relay();
+		}
+		catch (RuntimeException ex) {
+			// anything escaping here would cancel the schedule for good
+			logger.warn("Cannot relay change events, retrying", ex);
+		}
+	}
+
+	private static CustomizableThreadFactory threadFactory() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("change-relay-");
+		threadFactory.setDaemon(true);
+		return threadFactory;
+	}
+
+}
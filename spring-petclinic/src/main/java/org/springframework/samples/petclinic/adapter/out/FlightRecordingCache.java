@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import jdk.jfr.EventType;
+import org.springframework.cache.Cache;
+
+/**
+ * {@link Cache} that records every lookup as a {@link CacheLookupEvent}, hit or miss,
+ * while a flight recording enables the event; otherwise lookups go straight to the target
+ * cache. All other operations are delegated unchanged.
+ */
+class FlightRecordingCache implements Cache {
+
+	private static final EventType CACHE_LOOKUP_EVENTS = EventType.getEventType(CacheLookupEvent.class);
+
+	private final Cache target;
+
+	FlightRecordingCache(Cache target) {
+		this.target = target;
+	}
+
+	@Override
+	public String getName() {
+		return this.target.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this.target.getNativeCache();
+	}
+
+	@Override
+	public ValueWrapper get(Object key) {
+		if (!CACHE_LOOKUP_EVENTS.isEnabled()) {
+			return this.target.get(key);
+		}
+		CacheLookupEvent event = new CacheLookupEvent();
+		event.begin();
+		ValueWrapper value = this.target.get(key);
+		record(event, key, value != null);
+		return value;
+	}
+
+	@Override
+	public <T> T get(Object key, Class<T> type) {
+		if (!CACHE_LOOKUP_EVENTS.isEnabled()) {
+			return this.target.get(key, type);
+		}
+		CacheLookupEvent event = new CacheLookupEvent();
+		event.begin();
+		T value = this.target.get(key, type);
+		record(event, key, value != null);
+		return value;
+	}
+
+	@Override
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		if (!CACHE_LOOKUP_EVENTS.isEnabled()) {
+			return this.target.get(key, valueLoader);
+		}
+		CacheLookupEvent event = new CacheLookupEvent();
+		boolean[] loaded = new boolean[1];
+		event.begin();
+		T value = this.target.get(key, () -> {
+			loaded[0] = true;
+			return valueLoader.call();
+		});
+		record(event, key, !loaded[0]);
+		return value;
+	}
+
+	@Override
+	public CompletableFuture<?> retrieve(Object key) {
+		return this.target.retrieve(key);
+	}
+
+	@Override
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		return this.target.retrieve(key, valueLoader);
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		this.target.put(key, value);
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		return this.target.putIfAbsent(key, value);
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.target.evict(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		return this.target.evictIfPresent(key);
+	}
+
+	@Override
+	public void clear() {
+		this.target.clear();
+	}
+
+	@Override
+	public boolean invalidate() {
+		return this.target.invalidate();
+	}
+
+	private void record(CacheLookupEvent event, Object key, boolean hit) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.cache = getName();
+			event.key = String.valueOf(key);
+			event.hit = hit;
+			event.commit();
+		}
+	}
+
+}
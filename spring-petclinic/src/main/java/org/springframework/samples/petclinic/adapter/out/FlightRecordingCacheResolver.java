@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheResolver} of the cached repository methods, resolving the caches of an
+ * operation by name like the default one but as {@link FlightRecordingCache}s. The cache
+ * manager itself keeps its plain caches, so the cache metrics still see them.
+ */
+class FlightRecordingCacheResolver implements CacheResolver {
+
+	private final Supplier<CacheManager> cacheManager;
+
+	private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+	FlightRecordingCacheResolver(Supplier<CacheManager> cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	@Override
+	public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+		Collection<String> names = context.getOperation().getCacheNames();
+		List<Cache> caches = new ArrayList<>(names.size());
+		for (String name : names) {
+			caches.add(this.caches.computeIfAbsent(name, this::createCache));
+		}
+		return caches;
+	}
+
+	private Cache createCache(String name) {
+		Cache cache = this.cacheManager.get().getCache(name);
+		Assert.state(cache != null, () -> "Cannot find cache named '" + name + "'");
+		return new FlightRecordingCache(cache);
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+/**
+ * Replaces {@link org.springframework.data.repository.CrudRepository#save} of the
+ * {@link OwnerRepository} with a version that records the change in the
+ * {@link ChangeOutbox} and in the {@link StatisticsCounters}. <code>saveAll</code> and
+ * <code>saveAndFlush</code> bypass it and must not be used for owners.
+ *
+ * @param <T> the owner type, declared like the one of
+ * {@link org.springframework.data.repository.CrudRepository} so that both
+ * <code>save</code> methods are the same method
+ */
+public interface OwnerChangeRecordingSave<T> {
+
+	/**
+	 * Save the owner and its pets, recording a change event for the owner and for every
+	 * pet that is new, in the same transaction.
+	 * @param owner the owner to save
+	 * @return the saved owner; for an owner that is not new, the managed copy
+	 */
+	<S extends T> S save(S owner);
+
+}
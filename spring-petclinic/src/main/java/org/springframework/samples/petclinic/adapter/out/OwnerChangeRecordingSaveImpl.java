@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.samples.petclinic.domain.Pet;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Implementation of {@link OwnerChangeRecordingSave}, picked up by Spring Data as a
+ * fragment of the {@link OwnerRepository}.
+ */
+class OwnerChangeRecordingSaveImpl implements OwnerChangeRecordingSave<Owner> {
+
+	private final EntityManager entityManager;
+
+	private final ChangeOutbox outbox;
+
+	private final StatisticsCounters statistics;
+
+	OwnerChangeRecordingSaveImpl(EntityManager entityManager, ChangeOutbox outbox, StatisticsCounters statistics) {
+		this.entityManager = entityManager;
+		this.outbox = outbox;
+		this.statistics = statistics;
+	}
+
+	@Override
+	@Transactional
+	public <S extends Owner> S save(S owner) {
+		if (owner.isNew()) {
+			this.entityManager.persist(owner);
+			this.entityManager.flush();
+			this.outbox.ownerCreated(owner);
+			this.statistics.ownerRegistered(owner.getId());
+			for (Pet pet : owner.getPets()) {
+				this.outbox.petCreated(owner.getId(), pet);
+				this.statistics.petAdded(pet.getType());
+			}
+			return owner;
+		}
+		Set<Integer> known = new HashSet<>();
+		for (Pet pet : owner.getPets()) {
+			if (!pet.isNew()) {
+				known.add(pet.getId());
+			}
+		}
+		S saved = this.entityManager.merge(owner);
+		// assigns ids to the pets that were added
+		this.entityManager.flush();
+		this.outbox.ownerUpdated(saved);
+		for (Pet pet : saved.getPets()) {
+			if (!known.contains(pet.getId())) {
+				this.outbox.petCreated(saved.getId(), pet);
+				this.statistics.petAdded(pet.getType());
+			}
+		}
+		return saved;
+	}
+
+}
@@ -34,16 +34,27 @@ import org.springframework.samples.petclinic.domain.Owner;
  * @author Michael Isvy
  * @author Wick Dynex
  */
-public interface OwnerRepository extends JpaRepository<Owner, Integer> {
+public interface OwnerRepository extends JpaRepository<Owner, Integer>, OwnerChangeRecordingSave<Owner> {
 
 	/**
 	 * Retrieve {@link Owner}s from the data store by last name, returning all owners
-	 * whose last name <i>starts</i> with the given name.
+	 * whose last name <i>starts</i> with the given name, ignoring case and accents.
 	 * @param lastName Value to search for
 	 * @return a Collection of matching {@link Owner}s (or an empty Collection if none
 	 * found)
+	 * @see Owner#lastNameKey(String)
 	 */
-	Page<Owner> findByLastNameStartingWith(String lastName, Pageable pageable);
+	default Page<Owner> findByLastNameStartingWith(String lastName, Pageable pageable) {
+		return findByLastNameKeyStartingWith(Owner.lastNameKey(lastName), pageable);
+	}
+
+	/**
+	 * Retrieve {@link Owner}s from the data store whose last name key <i>starts</i> with
+	 * the given, already folded, prefix.
+	 * @param prefix the folded prefix to search for
+	 * @return a Page of matching {@link Owner}s
+	 */
+	Page<Owner> findByLastNameKeyStartingWith(String prefix, Pageable pageable);
 
 	/**
 	 * Retrieve an {@link Owner} from the data store by id.
@@ -18,6 +18,7 @@ package org.springframework.samples.petclinic.adapter.out;
 
 import java.util.List;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.samples.petclinic.domain.PetType;
@@ -31,9 +32,11 @@ import org.springframework.samples.petclinic.domain.PetType;
 public interface PetTypeRepository extends JpaRepository<PetType, Integer> {
 
 	/**
-	 * Retrieve all {@link PetType}s from the data store.
+	 * Retrieve all {@link PetType}s from the data store. The types are read on every pet
+	 * form and every submitted type name, and are cached.
 	 * @return a Collection of {@link PetType}s.
 	 */
+	@Cacheable("petTypes")
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
 	List<PetType> findPetTypes();
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+/**
+ * Sends read-only transactions to read replicas, enabled by listing their JDBC URLs in
+ * <code>petclinic.datasource.replicas.urls</code>. They are connected to with
+ * <code>petclinic.datasource.replicas.username</code> and
+ * <code>petclinic.datasource.replicas.password</code>, by default the credentials of the
+ * primary, and pooled like it with <code>spring.datasource.hikari.*</code>. Replicas
+ * lagging more than <code>petclinic.datasource.replicas.max-lag</code> are skipped; the
+ * lag is checked every <code>petclinic.datasource.replicas.check-interval</code>.
+ * <p>
+ * The connection of a transaction is only fetched when its first statement runs, once the
+ * transaction has been marked read-only or not; read-write transactions and all work
+ * outside transactions, such as the migrations, use the primary.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("petclinic.datasource.replicas.urls")
+class ReadReplicaConfiguration {
+
+	private static final String PREFIX = "petclinic.datasource.replicas.";
+
+	@Bean(defaultCandidate = false)
+	public HikariDataSource primaryDataSource(DataSourceProperties properties, Environment environment,
+			ObjectProvider<MeterRegistry> registry) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		return configure(dataSource, "primary", environment, registry);
+	}
+
+	@Bean
+	public ReadReplicas readReplicas(@Qualifier("primaryDataSource") HikariDataSource primary,
+			DataSourceProperties properties, Environment environment, ObjectProvider<MeterRegistry> registry) {
+		String username = environment.getProperty(PREFIX + "username", properties.determineUsername());
+		String password = environment.getProperty(PREFIX + "password", properties.determinePassword());
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		String[] urls = StringUtils.commaDelimitedListToStringArray(environment.getProperty(PREFIX + "urls"));
+		for (int i = 0; i < urls.length; i++) {
+			HikariDataSource replica = new HikariDataSource();
+			replica.setJdbcUrl(urls[i].trim());
+			replica.setUsername(username);
+			replica.setPassword(password);
+			replica.setReadOnly(true);
+			String name = "replica-" + (i + 1);
+			replicas.put(name, configure(replica, name, environment, registry));
+		}
+		return new ReadReplicas(primary, replicas,
+				environment.getProperty(PREFIX + "max-lag", Duration.class, Duration.ofSeconds(5)),
+				environment.getProperty(PREFIX + "check-interval", Duration.class, Duration.ofSeconds(1)),
+				registry.getIfAvailable(() -> Metrics.globalRegistry));
+	}
+
+	@Bean
+	public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary, ReadReplicas replicas) {
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+		dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replicas));
+		return dataSource;
+	}
+
+	private static HikariDataSource configure(HikariDataSource dataSource, String name, Environment environment,
+			ObjectProvider<MeterRegistry> registry) {
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+		dataSource.setPoolName(name);
+		dataSource.setMetricsTrackerFactory(
+				new MicrometerMetricsTrackerFactory(registry.getIfAvailable(() -> Metrics.globalRegistry)));
+		return dataSource;
+	}
+
+}
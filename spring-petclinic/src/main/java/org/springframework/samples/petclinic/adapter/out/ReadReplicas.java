@@ -0,0 +1,296 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * The replica pools that read-only transactions are spread over, and how far each of them
+ * lags behind the primary.
+ * <p>
+ * Every change is recorded in the <code>change_events</code> outbox in the transaction
+ * that makes it, so the highest event id of a database is its replication position. Every
+ * check interval the positions of the primary and of the replicas are read; a replica
+ * lags since the primary first reached a position the replica has not applied yet. A
+ * replica is only {@link #select() selected} while that lag is within the maximum and its
+ * last check is recent, so reads fall back to the primary when replication stalls or a
+ * replica is unreachable. The lag is published as the
+ * <code>petclinic.datasource.replica.lag</code> gauge, in seconds.
+ * </p>
+ */
+public class ReadReplicas implements SmartLifecycle, DisposableBean {
+
+	private static final String POSITION_QUERY = "SELECT COALESCE(MAX(id), 0) FROM change_events";
+
+	private static final int MAX_PENDING_POSITIONS = 1024;
+
+	private static final Log logger = LogFactory.getLog(ReadReplicas.class);
+
+	private final JdbcTemplate primary;
+
+	private final List<Replica> replicas = new ArrayList<>();
+
+	private final Duration maxLag;
+
+	private final Duration checkInterval;
+
+	private final Clock clock;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * Primary positions not yet applied by every replica, with the time they were first
+	 * seen, oldest first.
+	 */
+	private final Deque<Position> pending = new ArrayDeque<>();
+
+	private long trimmedPosition;
+
+	private ScheduledExecutorService executor;
+
+	public ReadReplicas(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, Duration checkInterval,
+			MeterRegistry registry) {
+		this(primary, replicas, maxLag, checkInterval, registry, Clock.systemUTC());
+	}
+
+	ReadReplicas(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, Duration checkInterval,
+			MeterRegistry registry, Clock clock) {
+		this.primary = new JdbcTemplate(primary);
+		this.maxLag = maxLag;
+		this.checkInterval = checkInterval;
+		this.clock = clock;
+		replicas.forEach((name, dataSource) -> {
+			Replica replica = new Replica(name, dataSource);
+			this.replicas.add(replica);
+			Gauge.builder("petclinic.datasource.replica.lag", replica, this::lagSeconds)
+				.description("Time the replica lags behind the primary, NaN while unknown")
+				.baseUnit("seconds")
+				.tag("replica", name)
+				.register(registry);
+		});
+	}
+
+	/**
+	 * Return the time within which a client's own writes may be missing on a selected
+	 * replica: the maximum lag, plus the time a check can be behind.
+	 * @return how long a client that wrote should keep reading from the primary
+	 */
+	public Duration getReadYourWritesWindow() {
+		return this.maxLag.plus(this.checkInterval.multipliedBy(2));
+	}
+
+	/**
+	 * Return the replica to run the next read-only transaction on, taking turns between
+	 * the replicas that are current enough.
+	 * @return the replica, or {@code null} if the primary must be used
+	 */
+	public DataSource select() {
+		long now = this.clock.millis();
+		int size = this.replicas.size();
+		int start = Math.floorMod(this.next.getAndIncrement(), size);
+		for (int i = 0; i < size; i++) {
+			Replica replica = this.replicas.get((start + i) % size);
+			if (isEligible(replica, now)) {
+				return replica.dataSource;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the current lag of every replica.
+	 * @return the lag by replica name, {@code null} while unknown
+	 */
+	public Map<String, Duration> getLag() {
+		long now = this.clock.millis();
+		Map<String, Duration> lag = new LinkedHashMap<>();
+		for (Replica replica : this.replicas) {
+			long millis = lagMillis(replica, now);
+			lag.put(replica.name, millis < 0 ? null : Duration.ofMillis(millis));
+		}
+		return lag;
+	}
+
+	/**
+	 * Read the positions of the primary and of every replica.
+	 */
+	public synchronized void check() {
+		long primaryPosition;
+		try {
+			primaryPosition = position(this.primary);
+		}
+		catch (DataAccessException ex) {
+			logger.debug("Cannot read the position of the primary", ex);
+			return;
+		}
+		long now = this.clock.millis();
+		Position last = this.pending.peekLast();
+		if (primaryPosition > (last != null ? last.id : this.trimmedPosition)) {
+			this.pending.addLast(new Position(primaryPosition, now));
+		}
+		long applied = Long.MAX_VALUE;
+		for (Replica replica : this.replicas) {
+			try {
+				long position = position(replica.jdbcTemplate);
+				replica.behindSince = behindSince(position);
+				replica.checkedAt = now;
+				applied = Math.min(applied, position);
+				if (replica.unavailable) {
+					logger.info("Replica " + replica.name + " is available again");
+					replica.unavailable = false;
+				}
+			}
+			catch (DataAccessException ex) {
+				if (!replica.unavailable) {
+					logger.warn("Replica " + replica.name + " is unavailable, reading from the primary", ex);
+					replica.unavailable = true;
+				}
+				replica.checkedAt = -1;
+			}
+		}
+		// replicas behind a dropped position count as lagging for an unknown time
+		while (!this.pending.isEmpty()
+				&& (this.pending.peekFirst().id <= applied || this.pending.size() > MAX_PENDING_POSITIONS)) {
+			this.trimmedPosition = this.pending.removeFirst().id;
+		}
+	}
+
+	private long behindSince(long position) {
+		if (position < this.trimmedPosition) {
+			return Long.MIN_VALUE;
+		}
+		for (Position candidate : this.pending) {
+			if (candidate.id > position) {
+				return candidate.seenAt;
+			}
+		}
+		return -1;
+	}
+
+	private boolean isEligible(Replica replica, long now) {
+		long lag = lagMillis(replica, now);
+		return lag >= 0 && lag <= this.maxLag.toMillis();
+	}
+
+	private long lagMillis(Replica replica, long now) {
+		long checkedAt = replica.checkedAt;
+		long behindSince = replica.behindSince;
+		if (checkedAt < 0 || now - checkedAt > this.checkInterval.toMillis() * 3 || behindSince == Long.MIN_VALUE) {
+			return -1;
+		}
+		return behindSince < 0 ? 0 : now - behindSince;
+	}
+
+	private double lagSeconds(Replica replica) {
+		long lag = lagMillis(replica, this.clock.millis());
+		return lag < 0 ? Double.NaN : lag / 1000.0;
+	}
+
+	private static long position(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForObject(POSITION_QUERY, Long.class);
+	}
+
+	@Override
+	public synchronized void start() {
+		if (this.executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-lag-");
+			threadFactory.setDaemon(true);
+			this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+			this.executor.scheduleWithFixedDelay(this::check, 0, this.checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return this.executor != null;
+	}
+
+	/**
+	 * Close the replica pools.
+	 */
+	@Override
+	public void destroy() throws Exception {
+		for (Replica replica : this.replicas) {
+			if (replica.dataSource instanceof AutoCloseable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+	private record Position(long id, long seenAt) {
+	}
+
+	private static final class Replica {
+
+		private final String name;
+
+		private final DataSource dataSource;
+
+		private final JdbcTemplate jdbcTemplate;
+
+		/**
+		 * When the replica was last read, -1 if that failed or never happened.
+		 */
+		private volatile long checkedAt = -1;
+
+		/**
+		 * When the primary reached the first position the replica misses, -1 if there is
+		 * none, {@link Long#MIN_VALUE} if that is no longer known.
+		 */
+		private volatile long behindSince = -1;
+
+		private boolean unavailable;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+			this.jdbcTemplate = new JdbcTemplate(dataSource);
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+/**
+ * Holds whether the current thread must read from the primary, because the client it
+ * serves has just written and a replica may not have its write yet.
+ */
+public final class ReadYourWrites {
+
+	private static final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+
+	private ReadYourWrites() {
+	}
+
+	/**
+	 * Send the read-only transactions of the current thread to the primary until
+	 * {@link #reset()} is called.
+	 */
+	public static void requirePrimary() {
+		primaryRequired.set(Boolean.TRUE);
+	}
+
+	/**
+	 * Allow the read-only transactions of the current thread to use a replica again.
+	 */
+	public static void reset() {
+		primaryRequired.remove();
+	}
+
+	/**
+	 * Return whether the current thread must read from the primary.
+	 * @return {@code true} after {@link #requirePrimary()}
+	 */
+	public static boolean isPrimaryRequired() {
+		return primaryRequired.get() != null;
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * {@link DataSource} for read-only transactions: connects to a replica selected by
+ * {@link ReadReplicas}, or to the primary if none is current enough or the current thread
+ * {@link ReadYourWrites requires the primary}.
+ */
+class ReplicaRoutingDataSource extends AbstractDataSource {
+
+	private final DataSource primary;
+
+	private final ReadReplicas replicas;
+
+	ReplicaRoutingDataSource(DataSource primary, ReadReplicas replicas) {
+		this.primary = primary;
+		this.replicas = replicas;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return route().getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return route().getConnection(username, password);
+	}
+
+	private DataSource route() {
+		DataSource replica = ReadYourWrites.isPrimaryRequired() ? null : this.replicas.select();
+		return replica != null ? replica : this.primary;
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.function.SingletonSupplier;
+
+/**
+ * Observes every method of the repositories of this package, the Spring Data ones as well
+ * as those annotated with {@link org.springframework.stereotype.Repository}, with a
+ * {@link RepositoryObservationInterceptor}, unless
+ * <code>petclinic.repository.observations.enabled</code> is <code>false</code>.
+ * <p>
+ * Repositories that are proxies already, for their transactions or by Spring Data, get
+ * the interceptor as their first advice, so the observations include the time spent
+ * beginning and committing transactions.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBooleanProperty(name = "petclinic.repository.observations.enabled", matchIfMissing = true)
+class RepositoryObservationConfiguration {
+
+	@Bean
+	static BeanPostProcessor repositoryObservationPostProcessor(ObjectProvider<ObservationRegistry> registry) {
+		SingletonSupplier<ObservationRegistry> observationRegistry = SingletonSupplier
+			.of(() -> registry.getIfAvailable(() -> ObservationRegistry.NOOP));
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				String repository = repositoryName(bean);
+				if (repository == null) {
+					return bean;
+				}
+				RepositoryObservationInterceptor interceptor = new RepositoryObservationInterceptor(repository,
+						observationRegistry);
+				if (bean instanceof Advised advised && !advised.isFrozen()) {
+					advised.addAdvice(0, interceptor);
+					return bean;
+				}
+				ProxyFactory proxyFactory = new ProxyFactory(bean);
+				proxyFactory.addAdvice(interceptor);
+				return proxyFactory.getProxy();
+			}
+
+		};
+	}
+
+	/**
+	 * Return the name observed repository methods are tagged with: the simple name of the
+	 * Spring Data repository interface or of the repository class.
+	 * @param bean the bean to check
+	 * @return the repository name, or <code>null</code> if the bean is no repository of
+	 * this package
+	 */
+	static String repositoryName(Object bean) {
+		String packageName = RepositoryObservationConfiguration.class.getPackageName();
+		for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(bean.getClass())) {
+			if (Repository.class.isAssignableFrom(type) && type.getPackageName().equals(packageName)) {
+				return type.getSimpleName();
+			}
+		}
+		Class<?> type = AopUtils.getTargetClass(bean);
+		if (type.getPackageName().equals(packageName)
+				&& AnnotatedElementUtils.hasAnnotation(type, org.springframework.stereotype.Repository.class)) {
+			return type.getSimpleName();
+		}
+		return null;
+	}
+
+}
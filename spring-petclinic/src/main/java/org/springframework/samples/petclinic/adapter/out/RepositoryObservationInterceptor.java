@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import jdk.jfr.EventType;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Observes the methods of one repository as <code>petclinic.repository</code>, tagged
+ * with the <code>repository</code>, its <code>method</code> and the <code>outcome</code>,
+ * <code>success</code> or <code>error</code>. Methods of {@link Object} are not observed.
+ * <p>
+ * While a flight recording enables it, every call is also recorded as a
+ * {@link RepositoryEvent} with the number of rows returned.
+ * </p>
+ */
+class RepositoryObservationInterceptor implements MethodInterceptor {
+
+	static final String OBSERVATION_NAME = "petclinic.repository";
+
+	private static final EventType REPOSITORY_EVENTS = EventType.getEventType(RepositoryEvent.class);
+
+	private final String repository;
+
+	private final Supplier<ObservationRegistry> registry;
+
+	RepositoryObservationInterceptor(String repository, Supplier<ObservationRegistry> registry) {
+		this.repository = repository;
+		this.registry = registry;
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		if (invocation.getMethod().getDeclaringClass() == Object.class) {
+			return invocation.proceed();
+		}
+		RepositoryEvent event = null;
+		if (REPOSITORY_EVENTS.isEnabled()) {
+			event = new RepositoryEvent();
+			event.begin();
+		}
+		Observation observation = Observation.createNotStarted(OBSERVATION_NAME, this.registry.get())
+			.lowCardinalityKeyValue("repository", this.repository)
+			.lowCardinalityKeyValue("method", invocation.getMethod().getName())
+			.start();
+		try (Observation.Scope scope = observation.openScope()) {
+			Object result = invocation.proceed();
+			observation.lowCardinalityKeyValue("outcome", "success");
+			record(event, invocation, rows(result));
+			return result;
+		}
+		catch (Throwable ex) {
+			observation.lowCardinalityKeyValue("outcome", "error");
+			observation.error(ex);
+			record(event, invocation, -1);
+			throw ex;
+		}
+		finally {
+			observation.stop();
+		}
+	}
+
+	private void record(RepositoryEvent event, MethodInvocation invocation, long rows) {
+		if (event != null) {
+			event.end();
+			if (event.shouldCommit()) {
+				event.repository = this.repository;
+				event.method = invocation.getMethod().getName();
+				event.rows = rows;
+				event.commit();
+			}
+		}
+	}
+
+	private static long rows(Object result) {
+		if (result == null) {
+			return 0;
+		}
+		if (result instanceof Collection<?> collection) {
+			return collection.size();
+		}
+		if (result instanceof Slice<?> slice) {
+			return slice.getNumberOfElements();
+		}
+		if (result instanceof Map<?, ?> map) {
+			return map.size();
+		}
+		if (result instanceof Optional<?> optional) {
+			return optional.isPresent() ? 1 : 0;
+		}
+		return 1;
+	}
+
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import org.springframework.dao.NonTransientDataAccessResourceException;
+
+/**
+ * Thrown instead of running a statement that would exceed the limit of the current
+ * {@link StatementTally}.
+ */
+public class StatementBudgetExceededException extends NonTransientDataAccessResourceException {
+
+	public StatementBudgetExceededException(int limit, String statement) {
+		super("Statement budget of " + limit + " exceeded by: " + statement);
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.function.SingletonSupplier;
+
+/**
+ * Times the statements run on the <code>dataSource</code> bean with a
+ * {@link StatementTimingDataSource}, unless
+ * <code>petclinic.jdbc.statement-metrics.enabled</code> is <code>false</code>.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBooleanProperty(name = "petclinic.jdbc.statement-metrics.enabled", matchIfMissing = true)
+class StatementMetricsConfiguration {
+
+	@Bean
+	static BeanPostProcessor statementTimingPostProcessor(ObjectProvider<MeterRegistry> registry) {
+		SingletonSupplier<MeterRegistry> meterRegistry = SingletonSupplier
+			.of(() -> registry.getIfAvailable(() -> Metrics.globalRegistry));
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+					return new StatementTimingDataSource(dataSource, meterRegistry);
+				}
+				return bean;
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the statements the current thread runs on the {@link StatementTimingDataSource}
+ * between {@link #start(int)} and {@link #stop()}, in total and per statement. A tally
+ * with a limit rejects the statement that would exceed it.
+ * <p>
+ * Statements are told apart as the data source tags them, without their parameters, so a
+ * statement run again and again with different parameters, the pattern of a lazy or eager
+ * association loaded one row at a time (N+1), adds up under one entry.
+ * </p>
+ */
+public final class StatementTally {
+
+	private static final ThreadLocal<StatementTally> current = new ThreadLocal<>();
+
+	private final StatementTally previous;
+
+	private final int limit;
+
+	private final Map<String, Integer> executions = new LinkedHashMap<>();
+
+	private int statements;
+
+	private StatementTally(StatementTally previous, int limit) {
+		this.previous = previous;
+		this.limit = limit;
+	}
+
+	/**
+	 * Start counting the statements of the current thread, until {@link #stop()} is
+	 * called on the returned tally.
+	 * @param limit the number of statements to allow, or <code>-1</code> for no limit
+	 * @return the started tally
+	 */
+	public static StatementTally start(int limit) {
+		StatementTally tally = new StatementTally(current.get(), limit);
+		current.set(tally);
+		return tally;
+	}
+
+	/**
+	 * Stop counting, going back to the tally that was current when this one started.
+	 */
+	public void stop() {
+		if (current.get() == this) {
+			if (this.previous != null) {
+				current.set(this.previous);
+			}
+			else {
+				current.remove();
+			}
+		}
+	}
+
+	static void record(String statement) {
+		StatementTally tally = current.get();
+		if (tally != null) {
+			tally.add(statement);
+		}
+	}
+
+	private void add(String statement) {
+		if (this.limit >= 0 && this.statements >= this.limit) {
+			throw new StatementBudgetExceededException(this.limit, statement);
+		}
+		this.statements++;
+		this.executions.merge(statement, 1, Integer::sum);
+	}
+
+	/**
+	 * Return the number of statements counted.
+	 * @return the number of statements
+	 */
+	public int getStatements() {
+		return this.statements;
+	}
+
+	/**
+	 * Return the statements that ran at least the given number of times, in the order
+	 * they first ran.
+	 * @param minExecutions the number of executions from which a statement is returned
+	 * @return the number of executions by statement
+	 */
+	public Map<String, Integer> getRepeatedStatements(int minExecutions) {
+		Map<String, Integer> repeated = new LinkedHashMap<>();
+		this.executions.forEach((statement, executions) -> {
+			if (executions >= minExecutions) {
+				repeated.put(statement, executions);
+			}
+		});
+		return repeated;
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * {@link DataSource} that times every statement execution, published as the
+ * <code>petclinic.jdbc.statements</code> timer tagged with the statement and its outcome.
+ * <p>
+ * Statements are tagged with their SQL, whitespace collapsed and parameter lists such as
+ * <code>in (?, ?, ?)</code> shortened to <code>(?)</code>, so that every statement the
+ * application issues is one time series. Past {@link #MAX_STATEMENTS} distinct
+ * statements, further ones are counted as <code>other</code>. Timers are looked up by the
+ * SQL string as prepared, so an execution costs a map lookup and a clock read.
+ * </p>
+ * <p>
+ * Executions are also counted by the {@link StatementTally} of the executing thread, if
+ * it has one, always under their own statement so that repeats are told apart even past
+ * {@link #MAX_STATEMENTS}.
+ * </p>
+ */
+public class StatementTimingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+	static final int MAX_STATEMENTS = 500;
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+	private static final String OTHER = "other";
+
+	private static final String BATCH = "batch";
+
+	private final Supplier<MeterRegistry> registry;
+
+	private final Map<String, StatementTimers> timers = new ConcurrentHashMap<>();
+
+	private volatile StatementTimers other;
+
+	public StatementTimingDataSource(DataSource targetDataSource, Supplier<MeterRegistry> registry) {
+		super(targetDataSource);
+		this.registry = registry;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return proxy(obtainTargetDataSource().getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return proxy(obtainTargetDataSource().getConnection(username, password));
+	}
+
+	/**
+	 * Close the target {@link DataSource}, which this one replaces as a bean.
+	 */
+	@Override
+	public void close() throws Exception {
+		if (getTargetDataSource() instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+
+	private Connection proxy(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				new ConnectionHandler(connection));
+	}
+
+	static String normalize(String sql) {
+		String statement = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+		return PARAMETER_LIST.matcher(statement).replaceAll("(?)");
+	}
+
+	private StatementTimers timers(String sql) {
+		StatementTimers timers = this.timers.get(sql);
+		if (timers != null) {
+			return timers;
+		}
+		if (this.timers.size() >= MAX_STATEMENTS) {
+			StatementTimers other = this.other;
+			if (other == null) {
+				other = new StatementTimers(OTHER);
+				this.other = other;
+			}
+			return other;
+		}
+		return this.timers.computeIfAbsent(sql, key -> new StatementTimers(normalize(key)));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+
+	private static Object unwrap(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+		Class<?> type = (Class<?>) args[0];
+		if (method.getName().equals("isWrapperFor")) {
+			return type.isInstance(proxy) || (Boolean) invoke(target, method, args);
+		}
+		return type.isInstance(proxy) ? proxy : invoke(target, method, args);
+	}
+
+	private final class ConnectionHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		ConnectionHandler(Connection target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			return switch (method.getName()) {
+				case "equals" -> proxy == args[0];
+				case "hashCode" -> System.identityHashCode(proxy);
+				case "unwrap", "isWrapperFor" -> unwrap(proxy, this.target, method, args);
+				case "createStatement" -> statement(proxy, Statement.class, null, method, args);
+				case "prepareStatement" -> statement(proxy, PreparedStatement.class, (String) args[0], method, args);
+				case "prepareCall" -> statement(proxy, CallableStatement.class, (String) args[0], method, args);
+				default -> StatementTimingDataSource.invoke(this.target, method, args);
+			};
+		}
+
+		private Object statement(Object connection, Class<?> type, String sql, Method method, Object[] args)
+				throws Throwable {
+			Statement statement = (Statement) StatementTimingDataSource.invoke(this.target, method, args);
+			return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type },
+					new StatementHandler(statement, (Connection) connection, sql));
+		}
+
+	}
+
+	private final class StatementHandler implements InvocationHandler {
+
+		private final Statement target;
+
+		private final Connection connection;
+
+		private final String sql;
+
+		StatementHandler(Statement target, Connection connection, String sql) {
+			this.target = target;
+			this.connection = connection;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			switch (name) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "getConnection":
+					return this.connection;
+				case "unwrap", "isWrapperFor":
+					return unwrap(proxy, this.target, method, args);
+				default:
+					if (!name.startsWith("execute")) {
+						return StatementTimingDataSource.invoke(this.target, method, args);
+					}
+			}
+			String sql = (args != null && args.length > 0 && args[0] instanceof String text) ? text : this.sql;
+			String key = (sql != null) ? sql : BATCH;
+			StatementTimers timers = timers(key);
+			StatementTally.record((timers != StatementTimingDataSource.this.other) ? timers.statement : normalize(key));
+			long start = System.nanoTime();
+			try {
+				Object result = StatementTimingDataSource.invoke(this.target, method, args);
+				timers.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				return result;
+			}
+			catch (Throwable ex) {
+				timers.error().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				throw ex;
+			}
+		}
+
+	}
+
+	private final class StatementTimers {
+
+		private final String statement;
+
+		private volatile Timer success;
+
+		private volatile Timer error;
+
+		StatementTimers(String statement) {
+			this.statement = statement;
+		}
+
+		Timer success() {
+			Timer timer = this.success;
+			if (timer == null) {
+				timer = timer("success");
+				this.success = timer;
+			}
+			return timer;
+		}
+
+		Timer error() {
+			Timer timer = this.error;
+			if (timer == null) {
+				timer = timer("error");
+				this.error = timer;
+			}
+			return timer;
+		}
+
+		private Timer timer(String outcome) {
+			return Timer.builder("petclinic.jdbc.statements")
+				.description("Time spent executing JDBC statements")
+				.tag("statement", this.statement)
+				.tag("outcome", outcome)
+				.register(StatementTimingDataSource.this.registry.get());
+		}
+
+	}
+
+}
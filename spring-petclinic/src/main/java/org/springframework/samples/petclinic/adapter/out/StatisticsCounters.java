@@ -0,0 +1,279 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.sql.DatabaseMetaData;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.samples.petclinic.domain.ClinicStatistics;
+import org.springframework.samples.petclinic.domain.ClinicStatistics.Count;
+import org.springframework.samples.petclinic.domain.PetType;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Counters behind the {@link ClinicStatistics}: pets per type, visits per month and
+ * owners registered per week, each kept in a summary table.
+ * <p>
+ * The counters are updated incrementally in the transaction of the write they count; the
+ * update methods refuse to run outside of one. Reading the statistics therefore only
+ * reads the summary tables, never the pets, visits or owners themselves. A write locks
+ * the counter rows it changes until it commits, so concurrent writes to the same month,
+ * week or pet type queue behind each other for that time; rows are locked in key order so
+ * that such writes do not deadlock.
+ * </p>
+ * <p>
+ * Writes that bypass the application, such as the synthetic data load, leave the counters
+ * behind; {@link #rebuild} recounts everything from scratch.
+ * </p>
+ */
+@Repository
+public class StatisticsCounters {
+
+	private final DataSource dataSource;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private volatile Dialect dialect;
+
+	public StatisticsCounters(DataSource dataSource) {
+		this.dataSource = dataSource;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Count an owner that has just been inserted in the week of its registration.
+	 * @param ownerId the owner
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void ownerRegistered(int ownerId) {
+		List<LocalDate> registeredOn = this.jdbcTemplate.queryForList("SELECT registered_on FROM owners WHERE id = ?",
+				LocalDate.class, ownerId);
+		if (!registeredOn.isEmpty() && registeredOn.get(0) != null) {
+			add(Counter.OWNER_WEEKS, weekOf(registeredOn.get(0)), 1);
+		}
+	}
+
+	/**
+	 * Count a pet that has just been added.
+	 * @param type the type of the pet, if any
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void petAdded(PetType type) {
+		petTypeChanged(null, type);
+	}
+
+	/**
+	 * Move a pet from the count of one type to that of another; nothing changes if both
+	 * are the same type.
+	 * @param from the former type of the pet, if any
+	 * @param to the new type of the pet, if any
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void petTypeChanged(PetType from, PetType to) {
+		SortedMap<Object, Long> changes = new TreeMap<>();
+		if (from != null && from.getId() != null) {
+			changes.merge(from.getId(), -1L, Long::sum);
+		}
+		if (to != null && to.getId() != null) {
+			changes.merge(to.getId(), 1L, Long::sum);
+		}
+		changes.forEach((typeId, delta) -> {
+			if (delta != 0) {
+				add(Counter.PET_TYPES, typeId, delta);
+			}
+		});
+	}
+
+	/**
+	 * Count visits that have just been inserted in the months they are dated in.
+	 * @param dates the dates of the visits
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void visitsBooked(Collection<LocalDate> dates) {
+		SortedMap<Object, Long> months = new TreeMap<>();
+		for (LocalDate date : dates) {
+			if (date != null) {
+				months.merge(monthOf(date), 1L, Long::sum);
+			}
+		}
+		months.forEach((month, delta) -> add(Counter.VISIT_MONTHS, month, delta));
+	}
+
+	/**
+	 * Read the statistics from the counters.
+	 * @return the current statistics
+	 */
+	@Transactional(readOnly = true)
+	public ClinicStatistics read() {
+		List<Count> petsPerType = this.jdbcTemplate.query("""
+				SELECT t.name, s.total FROM pet_type_statistics s JOIN types t ON t.id = s.type_id
+				WHERE s.total > 0 ORDER BY t.name""", (rs, rowNum) -> new Count(rs.getString(1), rs.getLong(2)));
+		List<Count> visitsPerMonth = this.jdbcTemplate.query(
+				"SELECT visit_month, total FROM visit_month_statistics ORDER BY visit_month",
+				(rs, rowNum) -> new Count(YearMonth.from(rs.getObject(1, LocalDate.class)).toString(), rs.getLong(2)));
+		List<Count> ownersPerWeek = this.jdbcTemplate.query(
+				"SELECT registration_week, total FROM owner_week_statistics ORDER BY registration_week",
+				(rs, rowNum) -> new Count(rs.getObject(1, LocalDate.class).toString(), rs.getLong(2)));
+		return new ClinicStatistics(petsPerType, visitsPerMonth, ownersPerWeek);
+	}
+
+	/**
+	 * Recount all statistics from the pets, visits, archived visits and owners, for
+	 * example after a bulk load. Meant to be run while the application does not write, as
+	 * writes committed during the recount may be counted twice or not at all.
+	 */
+	@Transactional
+	public void rebuild() {
+		SortedMap<Object, Long> types = new TreeMap<>();
+		this.jdbcTemplate.query("SELECT type_id, COUNT(*) FROM pets WHERE type_id IS NOT NULL GROUP BY type_id", rs -> {
+			types.put(rs.getInt(1), rs.getLong(2));
+		});
+		SortedMap<Object, Long> months = new TreeMap<>();
+		for (String table : new String[] { "visits", "visits_archive" }) {
+			this.jdbcTemplate.query(
+					"SELECT visit_date, COUNT(*) FROM " + table + " WHERE visit_date IS NOT NULL GROUP BY visit_date",
+					rs -> {
+						months.merge(monthOf(rs.getObject(1, LocalDate.class)), rs.getLong(2), Long::sum);
+					});
+		}
+		SortedMap<Object, Long> weeks = new TreeMap<>();
+		this.jdbcTemplate.query(
+				"SELECT registered_on, COUNT(*) FROM owners WHERE registered_on IS NOT NULL GROUP BY registered_on",
+				rs -> {
+					weeks.merge(weekOf(rs.getObject(1, LocalDate.class)), rs.getLong(2), Long::sum);
+				});
+		replace(Counter.PET_TYPES, types);
+		replace(Counter.VISIT_MONTHS, months);
+		replace(Counter.OWNER_WEEKS, weeks);
+	}
+
+	private void add(Counter counter, Object key, long delta) {
+		Dialect dialect = dialect();
+		if (dialect.upsert != null) {
+			this.jdbcTemplate.update(String.format(dialect.upsert, counter.table, counter.key), key, delta);
+		}
+		else if (this.jdbcTemplate.update(counter.update, delta, key) == 0) {
+			try {
+				this.jdbcTemplate.update(counter.insert, key, delta);
+			}
+			catch (DuplicateKeyException ex) {
+				// a concurrent write inserted the row first; on H2 the failed insert
+				// leaves the transaction intact
+				if (this.jdbcTemplate.update(counter.update, delta, key) == 0) {
+					throw ex;
+				}
+			}
+		}
+	}
+
+	private void replace(Counter counter, Map<Object, Long> totals) {
+		this.jdbcTemplate.update("DELETE FROM " + counter.table);
+		List<Object[]> rows = new ArrayList<>(totals.size());
+		totals.forEach((key, total) -> rows.add(new Object[] { key, total }));
+		this.jdbcTemplate.batchUpdate(counter.insert, rows);
+	}
+
+	private Dialect dialect() {
+		Dialect dialect = this.dialect;
+		if (dialect == null) {
+			try {
+				String product = JdbcUtils.extractDatabaseMetaData(this.dataSource,
+						DatabaseMetaData::getDatabaseProductName);
+				dialect = switch (product) {
+					case "PostgreSQL" -> Dialect.POSTGRES;
+					case "MySQL" -> Dialect.MYSQL;
+					default -> Dialect.OTHER;
+				};
+			}
+			catch (MetaDataAccessException ex) {
+				throw new IllegalStateException("Cannot determine the database", ex);
+			}
+			this.dialect = dialect;
+		}
+		return dialect;
+	}
+
+	private static LocalDate monthOf(LocalDate date) {
+		return date.withDayOfMonth(1);
+	}
+
+	private static LocalDate weekOf(LocalDate date) {
+		return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+	}
+
+	private enum Counter {
+
+		PET_TYPES("pet_type_statistics", "type_id"),
+
+		VISIT_MONTHS("visit_month_statistics", "visit_month"),
+
+		OWNER_WEEKS("owner_week_statistics", "registration_week");
+
+		private final String table;
+
+		private final String key;
+
+		private final String update;
+
+		private final String insert;
+
+		Counter(String table, String key) {
+			this.table = table;
+			this.key = key;
+			this.update = "UPDATE " + table + " SET total = total + ? WHERE " + key + " = ?";
+			this.insert = "INSERT INTO " + table + " (" + key + ", total) VALUES (?, ?)";
+		}
+
+	}
+
+	private enum Dialect {
+
+		POSTGRES("INSERT INTO %1$s AS s (%2$s, total) VALUES (?, ?)"
+				+ " ON CONFLICT (%2$s) DO UPDATE SET total = s.total + EXCLUDED.total"),
+
+		MYSQL("INSERT INTO %1$s (%2$s, total) VALUES (?, ?) AS delta"
+				+ " ON DUPLICATE KEY UPDATE total = %1$s.total + delta.total"),
+
+		// no portable upsert, update first and insert the row of a new key, updating
+		// after all if a concurrent write inserted it first
+		OTHER(null);
+
+		private final String upsert;
+
+		Dialect(String upsert) {
+			this.upsert = upsert;
+		}
+
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.domain.ClinicStatistics;
+
+/**
+ * Recounts the {@link StatisticsCounters} at startup, when
+ * <code>petclinic.statistics.rebuild=true</code>; used to backfill the statistics after
+ * writes that bypassed the application.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBooleanProperty("petclinic.statistics.rebuild")
+class StatisticsRebuildConfiguration {
+
+	private static final Log logger = LogFactory.getLog(StatisticsRebuildConfiguration.class);
+
+	@Bean
+	public ApplicationRunner statisticsRebuildRunner(StatisticsCounters statistics) {
+		return args -> {
+			statistics.rebuild();
+			ClinicStatistics rebuilt = statistics.read();
+			logger.info("Rebuilt statistics of " + rebuilt.petsPerType().size() + " pet types, "
+					+ rebuilt.visitsPerMonth().size() + " months and " + rebuilt.ownersPerWeek().size() + " weeks");
+		};
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Loads a {@link SyntheticDataGenerator synthetic dataset} after the migrations, when the
+ * <code>synthetic-data</code> profile is active. Its size is set with
+ * <code>petclinic.synthetic-data.owners</code>,
+ * <code>petclinic.synthetic-data.pets-per-owner</code> and
+ * <code>petclinic.synthetic-data.visits-per-pet</code>, its content with
+ * <code>petclinic.synthetic-data.seed</code>. The {@link StatisticsCounters} are rebuilt
+ * after a load, as it bypasses them.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("synthetic-data")
+class SyntheticDataConfiguration {
+
+	private static final String PREFIX = "petclinic.synthetic-data.";
+
+	@Bean
+	public ApplicationRunner syntheticDataRunner(Environment environment, DataSource dataSource,
+			PlatformTransactionManager transactionManager, StatisticsCounters statistics) {
+		SyntheticDataGenerator.Settings settings = new SyntheticDataGenerator.Settings(
+				environment.getProperty(PREFIX + "seed", Long.class, 42L),
+				environment.getProperty(PREFIX + "owners", Integer.class, 100_000),
+				environment.getProperty(PREFIX + "pets-per-owner", Double.class, 1.8),
+				environment.getProperty(PREFIX + "visits-per-pet", Double.class, 3.0),
+				environment.getProperty(PREFIX + "batch-size", Integer.class, 1000));
+		SyntheticDataGenerator generator = new SyntheticDataGenerator(dataSource, transactionManager, settings);
+		return args -> {
+			if (generator.generate().rows() > 0) {
+				statistics.rebuild();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * Loads a synthetic dataset of owners, pets and visits, for measuring queries and caches
+ * at production scale.
+ * <p>
+ * The data is derived from a seed only: the same settings produce the same rows, with ids
+ * following the rows already in the database. Names follow a long-tailed distribution,
+ * with a few very common last names and many rare ones, so prefix searches return both
+ * huge and tiny result pages. Pets per owner and visits per pet are Poisson-distributed
+ * around the configured means, and dates are relative to a fixed day rather than today.
+ * </p>
+ * <p>
+ * Rows are written with batched JDBC inserts in one transaction per chunk of
+ * {@link Settings#batchSize()} owners, and carry explicit ids, so pets and visits can
+ * reference their parents without reading generated keys back. The identity columns are
+ * moved past the loaded ids afterwards. The MySQL and Postgres profiles let their drivers
+ * rewrite the batches to multi-row inserts. The load bypasses the {@link ChangeOutbox}.
+ * </p>
+ */
+public class SyntheticDataGenerator {
+
+	static final LocalDate REFERENCE_DATE = LocalDate.of(2026, 1, 1);
+
+	private static final Log logger = LogFactory.getLog(SyntheticDataGenerator.class);
+
+	private static final String[] LAST_NAMES = { "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+			"Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+			"Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark",
+			"Ramirez", "Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen",
+			"Hill", "Flores", "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter",
+			"Roberts" };
+
+	private static final String[] SYLLABLES = { "ba", "ber", "cal", "dan", "del", "fer", "gan", "hal", "ker", "lan",
+			"lin", "mar", "mon", "nor", "ost", "par", "ren", "ros", "sch", "sen", "son", "ter", "val", "vic", "wal",
+			"win", "zel" };
+
+	private static final String[] FIRST_NAMES = { "James", "Mary", "Michael", "Patricia", "Robert", "Jennifer", "John",
+			"Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas",
+			"Karen", "Christopher", "Sarah", "Charles", "Lisa", "Daniel", "Nancy", "Matthew", "Sandra", "Anthony",
+			"Betty", "Mark", "Ashley", "Donald", "Emily", "Steven", "Kimberly", "Andrew", "Margaret", "Paul", "Donna",
+			"Joshua", "Michelle", "Kenneth", "Carol", "Kevin", "Amanda", "Brian", "Melissa", "George", "Deborah" };
+
+	private static final String[] CITIES = { "Madison", "Sun Prairie", "McFarland", "Windsor", "Monona", "Waunakee",
+			"Middleton", "Verona", "Fitchburg", "Stoughton", "Oregon", "Cottage Grove", "DeForest", "Mount Horeb",
+			"Cross Plains", "Deerfield", "Marshall", "Belleville", "Mazomanie", "Black Earth" };
+
+	private static final String[] STREETS = { "Main", "Oak", "Pine", "Maple", "Cedar", "Elm", "Washington", "Lake",
+			"Hill", "Park", "Liberty", "Prairie", "Mill", "Church", "River", "Spring", "Willow", "Forest" };
+
+	private static final String[] STREET_TYPES = { "St.", "Ave.", "Rd.", "Blvd.", "Ln.", "Dr.", "Way" };
+
+	private static final String[] PET_NAMES = { "Bella", "Max", "Luna", "Charlie", "Lucy", "Cooper", "Daisy", "Milo",
+			"Bailey", "Leo", "Lola", "Rocky", "Sadie", "Oliver", "Molly", "Buddy", "Chloe", "Tucker", "Stella", "Bear",
+			"Zoe", "Duke", "Lily", "Jack", "Penny", "Toby", "Rosie", "Oscar", "Coco", "Teddy", "Ruby", "Simba", "Nala",
+			"Jasper", "Ginger", "Loki", "Pepper", "Bandit", "Willow", "Murphy" };
+
+	private static final String[] DESCRIPTIONS = { "annual checkup", "rabies shot", "vaccination booster",
+			"dental cleaning", "neutered", "spayed", "nail trim", "skin allergy", "ear infection", "limping",
+			"weight check", "upset stomach", "microchipping", "x-ray", "blood work", "follow-up" };
+
+	private static final double[] LAST_NAME_WEIGHTS = zipf(LAST_NAMES.length, 1.0);
+
+	private static final double[] FIRST_NAME_WEIGHTS = zipf(FIRST_NAMES.length, 0.9);
+
+	private static final double[] CITY_WEIGHTS = zipf(CITIES.length, 1.2);
+
+	private static final double[] PET_NAME_WEIGHTS = zipf(PET_NAMES.length, 0.8);
+
+	private static final String INSERT_OWNER = "INSERT INTO owners (id, first_name, last_name, address, city, telephone, last_name_key, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+	private static final String INSERT_PET = "INSERT INTO pets (id, name, birth_date, type_id, owner_id, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+	private static final String INSERT_VISIT = "INSERT INTO visits (id, pet_id, visit_date, description, version) VALUES (?, ?, ?, ?, 0)";
+
+	private final DataSource dataSource;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Settings settings;
+
+	public SyntheticDataGenerator(DataSource dataSource, PlatformTransactionManager transactionManager,
+			Settings settings) {
+		Assert.isTrue(settings.owners() >= 0, "Owners must not be negative");
+		Assert.isTrue(settings.batchSize() > 0, "Batch size must be positive");
+		this.dataSource = dataSource;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.settings = settings;
+	}
+
+	/**
+	 * Load the dataset, unless the database already holds at least as many owners as it
+	 * would add, for example after a restart with the same settings.
+	 * @return the number of rows written
+	 */
+	public Result generate() {
+		if (count("owners") >= this.settings.owners()) {
+			logger.info("Database already holds " + this.settings.owners() + " owners, skipping synthetic data");
+			return new Result(0, 0, 0);
+		}
+		List<Integer> types = this.jdbcTemplate.queryForList("SELECT id FROM types ORDER BY id", Integer.class);
+		Assert.state(!types.isEmpty(), "Pet types must be loaded first");
+		long start = System.nanoTime();
+		SplittableRandom random = new SplittableRandom(this.settings.seed());
+		Ids ids = new Ids(maxId("owners"), maxId("pets"), maxId("visits"));
+		int written = 0;
+		while (written < this.settings.owners()) {
+			int size = Math.min(this.settings.batchSize(), this.settings.owners() - written);
+			Chunk chunk = chunk(random, ids, types, size);
+			this.transactionTemplate.executeWithoutResult(status -> write(chunk));
+			written += size;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + written + " of " + this.settings.owners() + " synthetic owners");
+			}
+		}
+		restartIdentities();
+		Result result = new Result(written, ids.pets - ids.petsStart, ids.visits - ids.visitsStart);
+		long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+		logger.info(String.format(Locale.ROOT, "Loaded %d owners, %d pets and %d visits in %d ms (%d rows/s)",
+				result.owners(), result.pets(), result.visits(), millis, result.rows() * 1000 / millis));
+		return result;
+	}
+
+	private Chunk chunk(SplittableRandom random, Ids ids, List<Integer> types, int size) {
+		Chunk chunk = new Chunk(size);
+		Set<String> petNames = new HashSet<>();
+		for (int i = 0; i < size; i++) {
+			int ownerId = ++ids.owners;
+			chunk.owners.add(new Object[] { ownerId, pick(random, FIRST_NAMES, FIRST_NAME_WEIGHTS), lastName(random),
+					address(random), pick(random, CITIES, CITY_WEIGHTS), telephone(random) });
+			int pets = poisson(random, this.settings.petsPerOwner());
+			petNames.clear();
+			for (int p = 0; p < pets; p++) {
+				int petId = ++ids.pets;
+				LocalDate birthDate = REFERENCE_DATE.minusDays(1 + random.nextInt(15 * 365));
+				chunk.pets.add(new Object[] { petId, petName(random, petNames), birthDate,
+						types.get(random.nextInt(types.size())), ownerId });
+				int visits = poisson(random, this.settings.visitsPerPet());
+				long days = REFERENCE_DATE.toEpochDay() - birthDate.toEpochDay();
+				for (int v = 0; v < visits; v++) {
+					LocalDate date = birthDate.plusDays(random.nextLong(days) + 1);
+					chunk.visits.add(new Object[] { ++ids.visits, petId, date,
+							DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)] });
+				}
+			}
+		}
+		return chunk;
+	}
+
+	private void write(Chunk chunk) {
+		int batchSize = this.settings.batchSize();
+		this.jdbcTemplate.batchUpdate(INSERT_OWNER, chunk.owners, batchSize, (ps, row) -> {
+			ps.setInt(1, (Integer) row[0]);
+			for (int i = 1; i < row.length; i++) {
+				ps.setString(i + 1, (String) row[i]);
+			}
+			ps.setString(row.length + 1, Owner.lastNameKey((String) row[2]));
+		});
+		this.jdbcTemplate.batchUpdate(INSERT_PET, chunk.pets, batchSize, (ps, row) -> {
+			ps.setInt(1, (Integer) row[0]);
+			ps.setString(2, (String) row[1]);
+			setDate(ps, 3, (LocalDate) row[2]);
+			ps.setInt(4, (Integer) row[3]);
+			ps.setInt(5, (Integer) row[4]);
+		});
+		this.jdbcTemplate.batchUpdate(INSERT_VISIT, chunk.visits, batchSize, (ps, row) -> {
+			ps.setInt(1, (Integer) row[0]);
+			ps.setInt(2, (Integer) row[1]);
+			setDate(ps, 3, (LocalDate) row[2]);
+			ps.setString(4, (String) row[3]);
+		});
+	}
+
+	private static void setDate(PreparedStatement ps, int index, LocalDate date) throws SQLException {
+		ps.setDate(index, Date.valueOf(date));
+	}
+
+	/**
+	 * Let ids generated for new rows continue after the loaded ones. MySQL moves its
+	 * <code>AUTO_INCREMENT</code> counters on explicit inserts by itself.
+	 */
+	private void restartIdentities() {
+		String product = databaseProduct();
+		for (String table : new String[] { "owners", "pets", "visits" }) {
+			long next = maxId(table) + 1;
+			if ("H2".equals(product)) {
+				this.jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+			}
+			else if ("PostgreSQL".equals(product)) {
+				this.jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence(?, 'id'), ?, false)", Long.class,
+						table, next);
+			}
+		}
+	}
+
+	private String databaseProduct() {
+		try {
+			return JdbcUtils.extractDatabaseMetaData(this.dataSource, DatabaseMetaData::getDatabaseProductName);
+		}
+		catch (MetaDataAccessException ex) {
+			throw new IllegalStateException("Cannot determine the database", ex);
+		}
+	}
+
+	private int count(String table) {
+		return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+
+	private int maxId(String table) {
+		return this.jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Integer.class);
+	}
+
+	private static String lastName(SplittableRandom random) {
+		// the common names cover about two thirds of the owners, the rest is a long tail
+		if (random.nextInt(3) < 2) {
+			return pick(random, LAST_NAMES, LAST_NAME_WEIGHTS);
+		}
+		StringBuilder name = new StringBuilder();
+		int syllables = 2 + random.nextInt(2);
+		for (int i = 0; i < syllables; i++) {
+			name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+		return name.toString();
+	}
+
+	private static String petName(SplittableRandom random, Set<String> taken) {
+		// pets of one owner need distinct names
+		for (int attempt = 0; attempt < 5; attempt++) {
+			String name = pick(random, PET_NAMES, PET_NAME_WEIGHTS);
+			if (taken.add(name.toLowerCase(Locale.ROOT))) {
+				return name;
+			}
+		}
+		String name = PET_NAMES[random.nextInt(PET_NAMES.length)] + " " + (taken.size() + 1);
+		taken.add(name.toLowerCase(Locale.ROOT));
+		return name;
+	}
+
+	private static String address(SplittableRandom random) {
+		return (1 + random.nextInt(9999)) + " " + STREETS[random.nextInt(STREETS.length)] + " "
+				+ STREET_TYPES[random.nextInt(STREET_TYPES.length)];
+	}
+
+	private static String telephone(SplittableRandom random) {
+		return "608" + (1_000_000 + random.nextInt(9_000_000));
+	}
+
+	private static String pick(SplittableRandom random, String[] values, double[] cumulativeWeights) {
+		double target = random.nextDouble();
+		int low = 0;
+		int high = cumulativeWeights.length - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cumulativeWeights[mid] < target) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return values[low];
+	}
+
+	private static int poisson(SplittableRandom random, double mean) {
+		double limit = Math.exp(-mean);
+		double product = random.nextDouble();
+		int count = 0;
+		while (product > limit) {
+			product *= random.nextDouble();
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Cumulative Zipf weights: the value at rank <code>k</code> is picked with a
+	 * probability proportional to <code>1 / k^exponent</code>.
+	 */
+	private static double[] zipf(int size, double exponent) {
+		double[] weights = new double[size];
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += 1 / Math.pow(i + 1, exponent);
+			weights[i] = total;
+		}
+		for (int i = 0; i < size; i++) {
+			weights[i] /= total;
+		}
+		return weights;
+	}
+
+	/**
+	 * What to generate.
+	 *
+	 * @param seed the seed all rows are derived from
+	 * @param owners the number of owners to add
+	 * @param petsPerOwner the average number of pets of an owner
+	 * @param visitsPerPet the average number of visits of a pet
+	 * @param batchSize the number of owners written per transaction, and the JDBC batch
+	 * size
+	 */
+	public record Settings(long seed, int owners, double petsPerOwner, double visitsPerPet, int batchSize) {
+	}
+
+	/**
+	 * The rows written by {@link #generate()}.
+	 *
+	 * @param owners the number of owners
+	 * @param pets the number of pets
+	 * @param visits the number of visits
+	 */
+	public record Result(int owners, int pets, int visits) {
+
+		public long rows() {
+			return (long) this.owners + this.pets + this.visits;
+		}
+
+	}
+
+	private static final class Ids {
+
+		private int owners;
+
+		private int pets;
+
+		private int visits;
+
+		private final int petsStart;
+
+		private final int visitsStart;
+
+		Ids(int owners, int pets, int visits) {
+			this.owners = owners;
+			this.pets = pets;
+			this.visits = visits;
+			this.petsStart = pets;
+			this.visitsStart = visits;
+		}
+
+	}
+
+	private static final class Chunk {
+
+		private final List<Object[]> owners;
+
+		private final List<Object[]> pets;
+
+		private final List<Object[]> visits;
+
+		Chunk(int owners) {
+			this.owners = new ArrayList<>(owners);
+			this.pets = new ArrayList<>(owners * 2);
+			this.visits = new ArrayList<>(owners * 6);
+		}
+
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.samples.petclinic.domain.Visit;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The <code>visits_archive</code> table, holding visits that are too old to be shown with
+ * every owner.
+ * <p>
+ * Archived visits are moved rather than copied, so <code>Pet.visits</code> and the
+ * indexes of the <code>visits</code> table only cover recent history, and archived visits
+ * are only read when asked for. On Postgres the archive is partitioned by year; the
+ * partitions are created as visits of a new year arrive.
+ * </p>
+ */
+@Repository
+public class VisitArchive {
+
+	private static final String COLUMNS = "id, pet_id, visit_date, description, version";
+
+	private static final String ARCHIVABLE = "visit_date < ? AND id <= ?";
+
+	private final DataSource dataSource;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private volatile Boolean partitioned;
+
+	public VisitArchive(DataSource dataSource) {
+		this.dataSource = dataSource;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Return the archived visits of a pet of the given owner, in date order.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet
+	 * @return the archived visits, empty if there are none or the owner has no such pet
+	 */
+	@Transactional(readOnly = true)
+	public List<Visit> findByPet(int ownerId, int petId) {
+		return this.jdbcTemplate.query("""
+				SELECT a.id, a.visit_date, a.description, a.version
+				FROM visits_archive a JOIN pets p ON p.id = a.pet_id
+				WHERE a.pet_id = ? AND p.owner_id = ?
+				ORDER BY a.visit_date, a.id""", VisitArchive::visit, petId, ownerId);
+	}
+
+	/**
+	 * Move the visits dated before the given day to the archive, at most
+	 * <code>limit</code> of them, lowest ids first.
+	 * @param before the first day of the visits to keep
+	 * @param limit the maximum number of visits to move
+	 * @return the number of moved visits
+	 */
+	@Transactional
+	public int archive(LocalDate before, int limit) {
+		List<Integer> ids = this.jdbcTemplate.queryForList(
+				"SELECT id FROM visits WHERE visit_date < ? ORDER BY id LIMIT ?", Integer.class, before, limit);
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		// visits dated before the cutoff and booked later get higher ids
+		int last = ids.get(ids.size() - 1);
+		if (isPartitioned()) {
+			createPartitions(before, last);
+		}
+		int moved = this.jdbcTemplate.update(
+				"INSERT INTO visits_archive (" + COLUMNS + ") SELECT " + COLUMNS + " FROM visits WHERE " + ARCHIVABLE,
+				before, last);
+		this.jdbcTemplate.update("DELETE FROM visits WHERE " + ARCHIVABLE, before, last);
+		return moved;
+	}
+
+	private void createPartitions(LocalDate before, int last) {
+		int[] years = this.jdbcTemplate.queryForObject(
+				"SELECT MIN(visit_date), MAX(visit_date) FROM visits WHERE " + ARCHIVABLE, (rs, rowNum) -> new int[] {
+						rs.getObject(1, LocalDate.class).getYear(), rs.getObject(2, LocalDate.class).getYear() },
+				before, last);
+		for (int year = years[0]; year <= years[1]; year++) {
+			this.jdbcTemplate
+				.execute(String.format("CREATE TABLE IF NOT EXISTS visits_archive_%d PARTITION OF visits_archive"
+						+ " FOR VALUES FROM ('%d-01-01') TO ('%d-01-01')", year, year, year + 1));
+		}
+	}
+
+	private boolean isPartitioned() {
+		Boolean partitioned = this.partitioned;
+		if (partitioned == null) {
+			try {
+				String product = JdbcUtils.extractDatabaseMetaData(this.dataSource,
+						DatabaseMetaData::getDatabaseProductName);
+				partitioned = "PostgreSQL".equals(product);
+			}
+			catch (MetaDataAccessException ex) {
+				throw new IllegalStateException("Cannot determine the database", ex);
+			}
+			this.partitioned = partitioned;
+		}
+		return partitioned;
+	}
+
+	private static Visit visit(ResultSet rs, int rowNum) throws SQLException {
+		Visit visit = new Visit();
+		visit.setId(rs.getInt("id"));
+		visit.setDate(rs.getObject("visit_date", LocalDate.class));
+		visit.setDescription(rs.getString("description"));
+		visit.setVersion(rs.getInt("version"));
+		return visit;
+	}
+
+}
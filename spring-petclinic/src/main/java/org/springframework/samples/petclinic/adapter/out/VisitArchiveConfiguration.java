@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.time.Duration;
+import java.time.Period;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Visit archival, enabled with <code>petclinic.visits.archive.enabled=true</code>. Visits
+ * older than <code>petclinic.visits.archive.age</code> are moved every
+ * <code>petclinic.visits.archive.interval</code>,
+ * <code>petclinic.visits.archive.batch-size</code> per transaction.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBooleanProperty("petclinic.visits.archive.enabled")
+class VisitArchiveConfiguration {
+
+	private static final String PREFIX = "petclinic.visits.archive.";
+
+	@Bean
+	public VisitArchiver visitArchiver(Environment environment, VisitArchive archive,
+			ObjectProvider<MeterRegistry> registry) {
+		return new VisitArchiver(archive, environment.getProperty(PREFIX + "age", Period.class, Period.ofYears(2)),
+				environment.getProperty(PREFIX + "interval", Duration.class, Duration.ofHours(1)),
+				environment.getProperty(PREFIX + "batch-size", Integer.class, 1000),
+				registry.getIfAvailable(() -> Metrics.globalRegistry));
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Background job moving visits older than a given age to the {@link VisitArchive}, a
+ * batch per transaction, so that no transaction holds locks on many visits at once. Moved
+ * visits are counted in <code>petclinic.visits.archived</code>.
+ */
+public class VisitArchiver implements SmartLifecycle {
+
+	private static final Log logger = LogFactory.getLog(VisitArchiver.class);
+
+	private final VisitArchive archive;
+
+	private final Period age;
+
+	private final Duration interval;
+
+	private final int batchSize;
+
+	private final Clock clock;
+
+	private final Counter archived;
+
+	private ScheduledExecutorService executor;
+
+	public VisitArchiver(VisitArchive archive, Period age, Duration interval, int batchSize, MeterRegistry registry) {
+		this(archive, age, interval, batchSize, registry, Clock.systemDefaultZone());
+	}
+
+	VisitArchiver(VisitArchive archive, Period age, Duration interval, int batchSize, MeterRegistry registry,
+			Clock clock) {
+		this.archive = archive;
+		this.age = age;
+		this.interval = interval;
+		this.batchSize = batchSize;
+		this.clock = clock;
+		this.archived = Counter.builder("petclinic.visits.archived")
+			.description("Visits moved to the archive")
+			.register(registry);
+	}
+
+	/**
+	 * Move all visits that have reached the archive age.
+	 * @return the number of moved visits
+	 */
+	public synchronized int archive() {
+		LocalDate before = LocalDate.now(this.clock).minus(this.age);
+		int total = 0;
+		int moved;
+		do {
+			moved = this.archive.archive(before, this.batchSize);
+			total += moved;
+			this.archived.increment(moved);
+		}
+		while (moved == this.batchSize);
+		if (total > 0) {
+			logger.info("Archived " + total + " visits dated before " + before);
+		}
+		return total;
+	}
+
+	@Override
+	public synchronized void start() {
+		if (this.executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("visit-archiver-");
+			threadFactory.setDaemon(true);
+			this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+			this.executor.scheduleWithFixedDelay(this::archiveQuietly, 0, this.interval.toMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void stop() {
+		ScheduledExecutorService executor;
+		synchronized (this) {
+			executor = this.executor;
+			this.executor = null;
+		}
+		if (executor != null) {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return this.executor != null;
+	}
+
+	private void archiveQuietly() {
+		try {
+			archive();
+		}
+		catch (DuplicateKeyException ex) {
+			// another instance archived the same visits
+			logger.debug("Cannot archive visits, retrying", ex);
+		}
+		catch (RuntimeException ex) {
+			// anything escaping here would cancel the schedule for good
+			logger.warn("Cannot archive visits, retrying", ex);
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.domain.Visit;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads the visit history of pets a page at a time, newest visits first, instead of
+ * loading <code>Pet.visits</code> in full.
+ * <p>
+ * Pages are keyed by the oldest visit already shown rather than by an offset, so a page
+ * only reads visits older than those shown, through the <code>(pet_id, visit_date)</code>
+ * index, however long the history of the pet. Visits recorded without a date come after
+ * all dated ones, ordered by id, so they can serve as the key too. Each page holds its
+ * visits in date order and knows whether older visits follow.
+ * </p>
+ */
+@Repository
+public class VisitHistory {
+
+	private static final String OWNED_VISITS = """
+			SELECT v.id, v.pet_id, v.visit_date, v.description, v.version
+			FROM visits v JOIN pets p ON p.id = v.pet_id
+			WHERE v.pet_id = ? AND p.owner_id = ?""";
+
+	private static final String NEWEST_FIRST = " ORDER BY (v.visit_date IS NULL), v.visit_date DESC, v.id DESC LIMIT ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public VisitHistory(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Return the most recent visits of every pet of the given owner, in one windowed
+	 * query.
+	 * @param ownerId the owner
+	 * @param size the maximum number of visits per pet
+	 * @return the first page of visits per pet id; pets without visits are left out
+	 */
+	@Transactional(readOnly = true)
+	public Map<Integer, Slice<Visit>> findRecentByOwner(int ownerId, int size) {
+		Map<Integer, List<Visit>> visits = new LinkedHashMap<>();
+		this.jdbcTemplate.query("""
+				SELECT id, pet_id, visit_date, description, version FROM (
+					SELECT v.id, v.pet_id, v.visit_date, v.description, v.version, ROW_NUMBER() OVER (
+						PARTITION BY v.pet_id ORDER BY (v.visit_date IS NULL), v.visit_date DESC, v.id DESC) AS rn
+					FROM visits v JOIN pets p ON p.id = v.pet_id
+					WHERE p.owner_id = ?) recent
+				WHERE rn <= ?
+				ORDER BY pet_id, (visit_date IS NULL), visit_date DESC, id DESC""", rs -> {
+			visits.computeIfAbsent(rs.getInt("pet_id"), petId -> new ArrayList<>()).add(visit(rs, 0));
+		}, ownerId, size + 1);
+		Map<Integer, Slice<Visit>> pages = new LinkedHashMap<>();
+		visits.forEach((petId, newestFirst) -> pages.put(petId, page(newestFirst, size)));
+		return pages;
+	}
+
+	/**
+	 * Return the most recent visits of a pet of the given owner.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet
+	 * @param size the maximum number of visits
+	 * @return the first page of visits, empty if the owner has no such pet
+	 */
+	@Transactional(readOnly = true)
+	public Slice<Visit> findByPet(int ownerId, int petId, int size) {
+		return page(this.jdbcTemplate.query(OWNED_VISITS + NEWEST_FIRST, VisitHistory::visit, petId, ownerId, size + 1),
+				size);
+	}
+
+	/**
+	 * Return the visits of a pet of the given owner that precede the given visit, the
+	 * most recent ones first.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet
+	 * @param date the date of the oldest visit already shown, <code>null</code> if it has
+	 * none
+	 * @param id the id of the oldest visit already shown
+	 * @param size the maximum number of visits
+	 * @return the next page of visits, empty if the owner has no such pet
+	 */
+	@Transactional(readOnly = true)
+	public Slice<Visit> findByPetBefore(int ownerId, int petId, LocalDate date, int id, int size) {
+		if (date == null) {
+			return page(this.jdbcTemplate.query(OWNED_VISITS + " AND v.visit_date IS NULL AND v.id < ?" + NEWEST_FIRST,
+					VisitHistory::visit, petId, ownerId, id, size + 1), size);
+		}
+		return page(this.jdbcTemplate.query(OWNED_VISITS
+				+ " AND (v.visit_date < ? OR (v.visit_date = ? AND v.id < ?) OR v.visit_date IS NULL)" + NEWEST_FIRST,
+				VisitHistory::visit, petId, ownerId, date, date, id, size + 1), size);
+	}
+
+	private static Slice<Visit> page(List<Visit> newestFirst, int size) {
+		boolean older = newestFirst.size() > size;
+		List<Visit> visits = new ArrayList<>(older ? newestFirst.subList(0, size) : newestFirst);
+		Collections.reverse(visits);
+		return new SliceImpl<>(visits, PageRequest.ofSize(size), older);
+	}
+
+	private static Visit visit(ResultSet rs, int rowNum) throws SQLException {
+		Visit visit = new Visit();
+		visit.setId(rs.getInt("id"));
+		visit.setDate(rs.getObject("visit_date", LocalDate.class));
+		visit.setDescription(rs.getString("description"));
+		visit.setVersion(rs.getInt("version"));
+		return visit;
+	}
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of booked visits in a memory-mapped file, used as the write-ahead
+ * log of the {@link WriteBehindVisitQueue}.
+ * <p>
+ * The file starts with a header holding the offset of the oldest entry that has not been
+ * written to the database yet, followed by the entries themselves. Each entry is prefixed
+ * with its length and a CRC32 checksum and followed by a zero length marker, so replay
+ * stops at the end of the log or at a torn write. Appends land in the page cache and
+ * survive a crash of the JVM; they are forced to disk on {@link #close()}.
+ * </p>
+ * <p>
+ * Entries are {@link #release(int) released} in order once they are in the database. When
+ * an append does not fit, the pending entries are moved to the start of the file if the
+ * released space can hold them; otherwise the journal is full and the append is refused.
+ * </p>
+ */
+public class VisitJournal implements Closeable {
+
+	private static final int MAGIC = 0x56495354;
+
+	private static final int HEAD_POSITION = 8;
+
+	private static final int HEADER_SIZE = 16;
+
+	// length and checksum
+	private static final int ENTRY_HEADER_SIZE = 8;
+
+	// owner, pet, visit date, creation time and description length
+	private static final int ENTRY_FIELDS_SIZE = 28;
+
+	private static final int TERMINATOR_SIZE = 4;
+
+	private static final long NO_DATE = Long.MIN_VALUE;
+
+	private final FileChannel channel;
+
+	private final FileLock lock;
+
+	private final MappedByteBuffer buffer;
+
+	private int head;
+
+	private int tail;
+
+	private boolean closed;
+
+	private VisitJournal(FileChannel channel, FileLock lock, MappedByteBuffer buffer) {
+		this.channel = channel;
+		this.lock = lock;
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC) {
+			buffer.putInt(HEADER_SIZE, 0);
+			buffer.putLong(HEAD_POSITION, HEADER_SIZE);
+			buffer.putInt(0, MAGIC);
+		}
+		this.head = (int) buffer.getLong(HEAD_POSITION);
+		this.tail = this.head;
+		for (Entry entry : read(this.head)) {
+			this.tail += entry.size();
+		}
+	}
+
+	/**
+	 * Open the journal in the given file, creating it if necessary. Entries left by a
+	 * previous run are available through {@link #pending()}.
+	 * @param file the journal file
+	 * @param capacity the size of the file in bytes; an existing larger file keeps its
+	 * size
+	 * @return the opened journal
+	 * @throws IOException if the file cannot be opened and mapped
+	 * @throws IllegalStateException if another process has the journal open
+	 */
+	public static VisitJournal open(Path file, int capacity) throws IOException {
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			FileLock lock = channel.tryLock();
+			if (lock == null) {
+				throw new IllegalStateException("Visit journal " + file + " is in use by another process");
+			}
+			long size = Math.max(channel.size(), Math.max(capacity, HEADER_SIZE + TERMINATOR_SIZE));
+			return new VisitJournal(channel, lock, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+		}
+		catch (IOException | RuntimeException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Append a visit to the journal.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet the visit is for
+	 * @param date the date of the visit, may be <code>null</code>
+	 * @param description the description of the visit
+	 * @return the appended entry, or <code>null</code> if the journal is full or closed
+	 */
+	public synchronized Entry append(int ownerId, int petId, LocalDate date, String description) {
+		byte[] text = description.getBytes(StandardCharsets.UTF_8);
+		int size = ENTRY_HEADER_SIZE + ENTRY_FIELDS_SIZE + text.length;
+		if (this.closed || (!fits(this.tail, size) && !compact(size))) {
+			return null;
+		}
+		long createdAt = System.currentTimeMillis();
+		int position = this.tail;
+		this.buffer.putInt(position + size, 0);
+		this.buffer.slice(position + ENTRY_HEADER_SIZE, size - ENTRY_HEADER_SIZE)
+			.putInt(ownerId)
+			.putInt(petId)
+			.putLong(date != null ? date.toEpochDay() : NO_DATE)
+			.putLong(createdAt)
+			.putInt(text.length)
+			.put(text);
+		this.buffer.putInt(position + 4, checksum(position, size));
+		// publishing the length makes the entry visible to replay
+		this.buffer.putInt(position, size);
+		this.tail += size;
+		return new Entry(ownerId, petId, date, description, createdAt, size);
+	}
+
+	/**
+	 * Return the entries that have been appended but not released yet, oldest first.
+	 * @return the pending entries
+	 */
+	public synchronized List<Entry> pending() {
+		return this.closed ? List.of() : read(this.head);
+	}
+
+	/**
+	 * Release the oldest pending entries once they have been written to the database.
+	 * @param bytes the combined {@link Entry#size() size} of the released entries
+	 */
+	public synchronized void release(int bytes) {
+		if (this.closed) {
+			return;
+		}
+		if (bytes < 0 || bytes > this.tail - this.head) {
+			throw new IllegalArgumentException("Cannot release " + bytes + " of " + (this.tail - this.head) + " bytes");
+		}
+		this.head += bytes;
+		this.buffer.putLong(HEAD_POSITION, this.head);
+		if (this.head == this.tail) {
+			compact(0);
+		}
+	}
+
+	/**
+	 * Force the journal to disk and close it. Pending entries are replayed when the
+	 * journal is opened again.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.buffer.force();
+		this.lock.release();
+		this.channel.close();
+	}
+
+	private boolean fits(int position, int size) {
+		return position + size + TERMINATOR_SIZE <= this.buffer.capacity();
+	}
+
+	/**
+	 * Move the pending entries to the start of the file. The target range must not
+	 * overlap the pending entries, so that a crash before the header is switched still
+	 * finds them intact.
+	 */
+	private boolean compact(int size) {
+		int pending = this.tail - this.head;
+		if (pending + TERMINATOR_SIZE > this.head - HEADER_SIZE || !fits(HEADER_SIZE + pending, size)) {
+			return false;
+		}
+		this.buffer.put(HEADER_SIZE, this.buffer, this.head, pending);
+		this.buffer.putInt(HEADER_SIZE + pending, 0);
+		this.buffer.putLong(HEAD_POSITION, HEADER_SIZE);
+		this.head = HEADER_SIZE;
+		this.tail = HEADER_SIZE + pending;
+		return true;
+	}
+
+	private List<Entry> read(int from) {
+		List<Entry> entries = new ArrayList<>();
+		int position = from;
+		while (fits(position, 0)) {
+			int size = this.buffer.getInt(position);
+			if (size < ENTRY_HEADER_SIZE + ENTRY_FIELDS_SIZE || size > this.buffer.capacity() || !fits(position, size)
+					|| this.buffer.getInt(position + 4) != checksum(position, size)) {
+				break;
+			}
+			ByteBuffer entry = this.buffer.slice(position + ENTRY_HEADER_SIZE, size - ENTRY_HEADER_SIZE);
+			int ownerId = entry.getInt();
+			int petId = entry.getInt();
+			long epochDay = entry.getLong();
+			long createdAt = entry.getLong();
+			byte[] text = new byte[entry.getInt()];
+			entry.get(text);
+			entries.add(new Entry(ownerId, petId, epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null,
+					new String(text, StandardCharsets.UTF_8), createdAt, size));
+			position += size;
+		}
+		return entries;
+	}
+
+	private int checksum(int position, int size) {
+		CRC32 crc = new CRC32();
+		crc.update(this.buffer.slice(position + ENTRY_HEADER_SIZE, size - ENTRY_HEADER_SIZE));
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * A visit in the journal.
+	 *
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet the visit is for
+	 * @param date the date of the visit
+	 * @param description the description of the visit
+	 * @param createdAt the time the visit was appended, in epoch milliseconds
+	 * @param size the number of bytes the entry takes up in the journal
+	 */
+	public record Entry(int ownerId, int petId, LocalDate date, String description, long createdAt, int size) {
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.samples.petclinic.domain.Visit;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository class for <code>Visit</code> domain objects.
+ * <p>
+ * Visits are written on their own rather than through the owning
+ * {@link org.springframework.samples.petclinic.domain.Owner} graph, so booking a visit
+ * never loads the owner, its pets or their visit history.
+ * </p>
+ */
+public interface VisitRepository extends Repository<Visit, Integer> {
+
+	/**
+	 * Insert a visit for the given pet, provided that the pet belongs to the given owner.
+	 * <p>
+	 * Ownership check and insert are one statement: the pet row is looked up by primary
+	 * key, and nothing is inserted when it does not exist or has another owner.
+	 * </p>
+	 * @param ownerId the owner the pet must belong to
+	 * @param petId the pet the visit is for
+	 * @param date the date of the visit
+	 * @param description the description of the visit
+	 * @return the number of inserted rows, <code>0</code> if the owner has no such pet
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = """
+			INSERT INTO visits (pet_id, visit_date, description)
+			SELECT id, :date, :description FROM pets WHERE id = :petId AND owner_id = :ownerId""", nativeQuery = true)
+	int insertForOwnedPet(@Param("ownerId") int ownerId, @Param("petId") int petId, @Param("date") LocalDate date,
+			@Param("description") String description);
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Write-behind visit booking, enabled with
+ * <code>petclinic.visits.write-behind.enabled=true</code>. The journal lives in
+ * <code>petclinic.visits.write-behind.journal</code>; its size and the JDBC batch size
+ * are set with <code>petclinic.visits.write-behind.journal-size</code> and
+ * <code>petclinic.visits.write-behind.batch-size</code>.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBooleanProperty("petclinic.visits.write-behind.enabled")
+class WriteBehindConfiguration {
+
+	private static final String PREFIX = "petclinic.visits.write-behind.";
+
+	@Bean
+	public WriteBehindVisitQueue writeBehindVisitQueue(Environment environment, DataSource dataSource,
+			ChangeOutbox outbox, StatisticsCounters statistics, PlatformTransactionManager transactionManager,
+			ObjectProvider<MeterRegistry> registry) throws IOException {
+		Path file = Path.of(environment.getProperty(PREFIX + "journal", "petclinic-visits.journal"));
+		DataSize size = DataSize.parse(environment.getProperty(PREFIX + "journal-size", "16MB"));
+		int batchSize = environment.getProperty(PREFIX + "batch-size", Integer.class, 100);
+		return new WriteBehindVisitQueue(VisitJournal.open(file, Math.toIntExact(size.toBytes())),
+				new JdbcTemplate(dataSource), outbox, statistics, new TransactionTemplate(transactionManager),
+				batchSize, registry.getIfAvailable(() -> Metrics.globalRegistry));
+	}
+
+}
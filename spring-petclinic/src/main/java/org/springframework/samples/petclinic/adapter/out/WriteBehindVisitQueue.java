@@ -0,0 +1,350 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.adapter.out;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.domain.Visit;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind queue for booked visits: a visit is appended to the {@link VisitJournal}
+ * and acknowledged right away, and a background worker writes the queued visits to the
+ * database in JDBC batches, one transaction per batch that also records the visits in the
+ * {@link ChangeOutbox} and counts them in the {@link StatisticsCounters}.
+ * <p>
+ * Entries are released from the journal only after their batch has been committed, and
+ * the entries still in the journal are queued again on startup. Delivery is therefore at
+ * least once: a crash between commit and release inserts that batch a second time. Like
+ * the synchronous booking, the insert checks that the pet belongs to the owner; visits
+ * that fail the check are dropped and counted, as the request that booked them has long
+ * been answered.
+ * </p>
+ * <p>
+ * A batch that keeps failing is written again one visit at a time, so that a single visit
+ * the database rejects does not hold up the ones behind it. Visits that still fail while
+ * the database is reachable are dead-lettered: logged, counted and released from the
+ * journal.
+ * </p>
+ * <p>
+ * The queue depth and the age of the oldest unwritten visit are published as the
+ * <code>petclinic.visits.write_behind.depth</code> and
+ * <code>petclinic.visits.write_behind.lag</code> gauges.
+ * </p>
+ */
+public class WriteBehindVisitQueue implements SmartLifecycle {
+
+	static final String METER_PREFIX = "petclinic.visits.write_behind";
+
+	private static final String INSERT = """
+			INSERT INTO visits (pet_id, visit_date, description)
+			SELECT id, ?, ? FROM pets WHERE id = ? AND owner_id = ?""";
+
+	private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+
+	private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+	private static final int BATCH_ATTEMPTS = 3;
+
+	private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+	private static final Log logger = LogFactory.getLog(WriteBehindVisitQueue.class);
+
+	private final VisitJournal journal;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ChangeOutbox outbox;
+
+	private final StatisticsCounters statistics;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int batchSize;
+
+	private final BlockingQueue<VisitJournal.Entry> queue = new LinkedBlockingQueue<>();
+
+	private final AtomicInteger depth = new AtomicInteger();
+
+	private final Counter written;
+
+	private final Counter dropped;
+
+	private final Counter deadLettered;
+
+	private volatile VisitJournal.Entry writing;
+
+	private volatile boolean running;
+
+	private boolean stopped;
+
+	private Thread worker;
+
+	public WriteBehindVisitQueue(VisitJournal journal, JdbcTemplate jdbcTemplate, ChangeOutbox outbox,
+			StatisticsCounters statistics, TransactionTemplate transactionTemplate, int batchSize,
+			MeterRegistry registry) {
+		this.journal = journal;
+		this.jdbcTemplate = jdbcTemplate;
+		this.outbox = outbox;
+		this.statistics = statistics;
+		this.transactionTemplate = transactionTemplate;
+		this.batchSize = batchSize;
+		List<VisitJournal.Entry> replayed = journal.pending();
+		if (!replayed.isEmpty()) {
+			logger.info("Replaying " + replayed.size() + " visits from the journal");
+		}
+		this.queue.addAll(replayed);
+		this.depth.set(replayed.size());
+		Gauge.builder(METER_PREFIX + ".depth", this.depth, AtomicInteger::get)
+			.description("Visits acknowledged but not yet written to the database")
+			.register(registry);
+		TimeGauge.builder(METER_PREFIX + ".lag", this, TimeUnit.MILLISECONDS, WriteBehindVisitQueue::lagMillis)
+			.description("Age of the oldest visit not yet written to the database")
+			.register(registry);
+		this.written = Counter.builder(METER_PREFIX + ".written").register(registry);
+		this.dropped = Counter.builder(METER_PREFIX + ".dropped")
+			.description("Visits whose pet does not belong to the owner")
+			.register(registry);
+		this.deadLettered = Counter.builder(METER_PREFIX + ".dead_lettered")
+			.description("Visits the database rejected, released from the journal unwritten")
+			.register(registry);
+	}
+
+	/**
+	 * Queue a visit for a pet of the given owner.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet to book the visit for
+	 * @param visit the visit to book
+	 * @return <code>true</code> if the visit is queued, <code>false</code> if the journal
+	 * is full or the queue is shut down and the visit must be written directly
+	 */
+	public synchronized boolean offer(int ownerId, int petId, Visit visit) {
+		if (this.stopped) {
+			return false;
+		}
+		VisitJournal.Entry entry = this.journal.append(ownerId, petId, visit.getDate(), visit.getDescription());
+		if (entry == null) {
+			logger.warn("Visit journal is full, writing visit directly");
+			return false;
+		}
+		// journal and queue order must match, entries are released by size
+		this.depth.incrementAndGet();
+		this.queue.add(entry);
+		return true;
+	}
+
+	/**
+	 * Return the number of visits acknowledged but not yet written to the database.
+	 * @return the queue depth
+	 */
+	public int getDepth() {
+		return this.depth.get();
+	}
+
+	@Override
+	public synchronized void start() {
+		if (this.running || this.stopped) {
+			return;
+		}
+		this.running = true;
+		this.worker = new Thread(this::drain, "visit-write-behind");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	/**
+	 * Stop accepting visits, write what is queued and close the journal. Visits that
+	 * cannot be written in time stay in the journal for the next start.
+	 */
+	@Override
+	public void stop() {
+		Thread worker;
+		synchronized (this) {
+			this.stopped = true;
+			this.running = false;
+			worker = this.worker;
+		}
+		try {
+			if (worker != null) {
+				worker.join(SHUTDOWN_TIMEOUT.toMillis());
+				worker.interrupt();
+				worker.join();
+			}
+			this.journal.close();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		catch (IOException ex) {
+			logger.warn("Cannot close visit journal", ex);
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	private void drain() {
+		List<VisitJournal.Entry> batch = new ArrayList<>(this.batchSize);
+		int failures = 0;
+		while (this.running || !batch.isEmpty() || !this.queue.isEmpty()) {
+			try {
+				if (batch.isEmpty()) {
+					VisitJournal.Entry first = this.queue.poll(POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+					if (first == null) {
+						continue;
+					}
+					batch.add(first);
+					this.queue.drainTo(batch, this.batchSize - 1);
+				}
+				this.writing = batch.get(0);
+				if (failures < BATCH_ATTEMPTS) {
+					write(batch);
+				}
+				else {
+					writeEach(batch);
+				}
+				batch.clear();
+				failures = 0;
+				this.writing = null;
+			}
+			catch (RuntimeException ex) {
+				// anything escaping here would end the worker and strand the journal
+				if (!this.running) {
+					logger.warn("Leaving " + this.depth.get() + " visits in the journal", ex);
+					return;
+				}
+				failures++;
+				logger.warn("Cannot write " + batch.size() + " visits, retrying", ex);
+				if (!sleep(RETRY_DELAY)) {
+					return;
+				}
+			}
+			catch (InterruptedException ex) {
+				return;
+			}
+		}
+	}
+
+	private void write(List<VisitJournal.Entry> batch) {
+		List<Object[]> args = new ArrayList<>(batch.size());
+		int bytes = 0;
+		for (VisitJournal.Entry entry : batch) {
+			args.add(new Object[] { entry.date(), entry.description(), entry.petId(), entry.ownerId() });
+			bytes += entry.size();
+		}
+		int[] counts = this.transactionTemplate.execute(status -> {
+			int[] inserted = this.jdbcTemplate.batchUpdate(INSERT, args);
+			List<LocalDate> dates = new ArrayList<>(inserted.length);
+			for (int i = 0; i < inserted.length; i++) {
+				if (inserted[i] != 0) {
+					VisitJournal.Entry entry = batch.get(i);
+					this.outbox.visitBooked(entry.ownerId(), entry.petId(), entry.date(), entry.description());
+					dates.add(entry.date());
+				}
+			}
+			this.statistics.visitsBooked(dates);
+			return inserted;
+		});
+		this.journal.release(bytes);
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == 0) {
+				VisitJournal.Entry entry = batch.get(i);
+				logger.warn("Dropping visit for pet " + entry.petId() + ", which does not belong to owner "
+						+ entry.ownerId());
+				this.dropped.increment();
+			}
+			else {
+				this.written.increment();
+			}
+		}
+		// counted first, so an empty queue means its visits are fully accounted for
+		this.depth.addAndGet(-batch.size());
+	}
+
+	/**
+	 * Write the visits of a failing batch one at a time, dead-lettering those the
+	 * database rejects. Written and dead-lettered visits are removed from the batch, so
+	 * that when the database becomes unavailable part way the rest is retried later.
+	 */
+	private void writeEach(List<VisitJournal.Entry> batch) {
+		for (Iterator<VisitJournal.Entry> entries = batch.iterator(); entries.hasNext();) {
+			VisitJournal.Entry entry = entries.next();
+			this.writing = entry;
+			try {
+				write(List.of(entry));
+			}
+			catch (RuntimeException ex) {
+				if (isUnavailable(ex)) {
+					throw ex;
+				}
+				logger.error("Dead-lettering visit for pet " + entry.petId() + " of owner " + entry.ownerId() + " on "
+						+ entry.date() + ": " + entry.description(), ex);
+				this.journal.release(entry.size());
+				this.deadLettered.increment();
+				this.depth.decrementAndGet();
+			}
+			entries.remove();
+		}
+	}
+
+	private static boolean isUnavailable(RuntimeException ex) {
+		return ex instanceof TransactionException || ex instanceof TransientDataAccessException
+				|| ex instanceof RecoverableDataAccessException
+				|| ex instanceof NonTransientDataAccessResourceException;
+	}
+
+	private double lagMillis() {
+		VisitJournal.Entry oldest = this.writing;
+		if (oldest == null) {
+			oldest = this.queue.peek();
+		}
+		return (oldest != null) ? Math.max(0, System.currentTimeMillis() - oldest.createdAt()) : 0;
+	}
+
+	private static boolean sleep(Duration duration) {
+		try {
+			Thread.sleep(duration.toMillis());
+			return true;
+		}
+		catch (InterruptedException ex) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.application;
+
+import java.util.Objects;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.samples.petclinic.adapter.out.ChangeOutbox;
+import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.samples.petclinic.adapter.out.StatisticsCounters;
+import org.springframework.samples.petclinic.domain.DuplicatePetNameException;
+import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.samples.petclinic.domain.OwnerNotFoundException;
+import org.springframework.samples.petclinic.domain.Pet;
+import org.springframework.samples.petclinic.domain.PetNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+/**
+ * Edits owners and their pets.
+ * <p>
+ * Every use case runs in a single transaction: the owner is loaded, changed and flushed
+ * in one persistence context, so a form submission costs one round of statements instead
+ * of a read, a merge that reads everything again and a write in transactions of their
+ * own.
+ * </p>
+ * <p>
+ * Form values are copied onto the managed entity inside the transaction instead of
+ * merging the detached form object. Together with bytecode-enhanced dirty tracking and
+ * {@link org.hibernate.annotations.DynamicUpdate}, an edit only updates the columns that
+ * actually changed, and pets and visits that were not edited are left alone.
+ * </p>
+ * <p>
+ * The version submitted with the form must still be the current one. Otherwise, or if no
+ * version was submitted at all, the entity may have changed since the form was rendered
+ * and an {@link ObjectOptimisticLockingFailureException} is thrown instead of overwriting
+ * that change. Concurrent commits of the same version are caught by the version check of
+ * the <code>UPDATE</code> statement itself.
+ * </p>
+ * <p>
+ * Every edit is recorded in the {@link ChangeOutbox}, and counted in the
+ * {@link StatisticsCounters}, within its transaction.
+ * </p>
+ */
+@Service
+public class OwnerService {
+
+	private final OwnerRepository owners;
+
+	private final ChangeOutbox outbox;
+
+	private final StatisticsCounters statistics;
+
+	public OwnerService(OwnerRepository owners, ChangeOutbox outbox, StatisticsCounters statistics) {
+		this.owners = owners;
+		this.outbox = outbox;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Load an owner together with its pets and their visits.
+	 * @param ownerId the owner to load
+	 * @return the owner
+	 * @throws OwnerNotFoundException if there is no owner with that id
+	 */
+	@Transactional(readOnly = true)
+	public Owner findOwner(int ownerId) {
+		return this.owners.findById(ownerId).orElseThrow(() -> new OwnerNotFoundException(ownerId));
+	}
+
+	/**
+	 * Find the owners whose last name starts with the given prefix.
+	 * @param lastName the prefix, empty for all owners
+	 * @param pageable the page to return
+	 * @return the matching owners
+	 */
+	@Transactional(readOnly = true)
+	public Page<Owner> findOwners(String lastName, Pageable pageable) {
+		return this.owners.findByLastNameStartingWith(lastName, pageable);
+	}
+
+	/**
+	 * Register a new owner.
+	 * @param owner the owner to insert
+	 * @return the owner, with its id assigned
+	 */
+	@Transactional
+	public Owner createOwner(Owner owner) {
+		return this.owners.save(owner);
+	}
+
+	/**
+	 * Add a new pet to an existing owner.
+	 * @param ownerId the owner of the pet
+	 * @param pet the pet to add
+	 * @throws OwnerNotFoundException if there is no owner with that id
+	 * @throws DuplicatePetNameException if the owner already has a pet with that name
+	 */
+	@Transactional
+	public void addPet(int ownerId, Pet pet) {
+		Owner owner = this.owners.findById(ownerId).orElseThrow(() -> new OwnerNotFoundException(ownerId));
+		checkName(owner, ownerId, pet);
+		owner.addPet(pet);
+		// assigns the id the event refers to
+		this.owners.flush();
+		this.outbox.petCreated(ownerId, pet);
+		this.statistics.petAdded(pet.getType());
+	}
+
+	/**
+	 * Apply the contact details of the given form object to an existing owner.
+	 * @param ownerId the owner to update
+	 * @param changes the submitted owner details
+	 * @throws OwnerNotFoundException if there is no owner with that id
+	 * @throws ObjectOptimisticLockingFailureException if the owner was changed since the
+	 * submitted version
+	 */
+	@Transactional
+	public void updateOwner(int ownerId, Owner changes) {
+		Owner owner = this.owners.findById(ownerId).orElseThrow(() -> new OwnerNotFoundException(ownerId));
+		checkVersion(Owner.class, ownerId, changes.getVersion(), owner.getVersion());
+		owner.setFirstName(changes.getFirstName());
+		owner.setLastName(changes.getLastName());
+		owner.setAddress(changes.getAddress());
+		owner.setCity(changes.getCity());
+		owner.setTelephone(changes.getTelephone());
+		this.outbox.ownerUpdated(owner);
+	}
+
+	/**
+	 * Apply the details of the given form object to an existing pet of the owner.
+	 * @param ownerId the owner of the pet
+	 * @param changes the submitted pet details, including the pet id
+	 * @throws PetNotFoundException if the owner has no pet with that id
+	 * @throws DuplicatePetNameException if another pet of the owner has that name
+	 * @throws ObjectOptimisticLockingFailureException if the pet was changed since the
+	 * submitted version
+	 */
+	@Transactional
+	public void updatePet(int ownerId, Pet changes) {
+		Owner owner = this.owners.findById(ownerId).orElseThrow(() -> new OwnerNotFoundException(ownerId));
+		Pet pet = owner.getPet(changes.getId());
+		if (pet == null) {
+			throw new PetNotFoundException(ownerId, changes.getId());
+		}
+		checkVersion(Pet.class, pet.getId(), changes.getVersion(), pet.getVersion());
+		checkName(owner, ownerId, changes);
+		this.statistics.petTypeChanged(pet.getType(), changes.getType());
+		pet.setName(changes.getName());
+		pet.setBirthDate(changes.getBirthDate());
+		pet.setType(changes.getType());
+		this.outbox.petUpdated(ownerId, pet);
+	}
+
+	private static void checkName(Owner owner, int ownerId, Pet pet) {
+		if (StringUtils.hasText(pet.getName())) {
+			Pet existing = owner.getPet(pet.getName(), false);
+			if (existing != null && !Objects.equals(existing.getId(), pet.getId())) {
+				throw new DuplicatePetNameException(ownerId, pet.getName());
+			}
+		}
+	}
+
+	private static void checkVersion(Class<?> type, Object id, Integer submitted, Integer current) {
+		// a missing version is treated as stale, or leaving it out would skip the check
+		if (submitted == null || !submitted.equals(current)) {
+			throw new ObjectOptimisticLockingFailureException(type, id);
+		}
+	}
+
+}
@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.application;
 
+import jdk.jfr.EventType;
 import org.springframework.format.Formatter;
 import org.springframework.samples.petclinic.adapter.out.PetTypeRepository;
 import org.springframework.samples.petclinic.domain.PetType;
@@ -30,6 +31,10 @@ import java.util.Objects;
  * from Spring 3.0, Formatters have come as an improvement in comparison to legacy
  * PropertyEditors. See the following links for more details: - The Spring ref doc:
  * https://docs.spring.io/spring-framework/docs/current/spring-framework-reference/core.html#format
+ * <p>
+ * While a flight recording enables it, every parsed name is recorded as a
+ * {@link PetTypeLookupEvent}.
+ * </p>
  *
  * @author Mark Fisher
  * @author Juergen Hoeller
@@ -38,6 +43,8 @@ import java.util.Objects;
 @Component
 public class PetTypeFormatter implements Formatter<PetType> {
 
+	private static final EventType LOOKUP_EVENTS = EventType.getEventType(PetTypeLookupEvent.class);
+
 	private final PetTypeRepository types;
 
 	public PetTypeFormatter(PetTypeRepository types) {
@@ -52,13 +59,32 @@ public class PetTypeFormatter implements Formatter<PetType> {
 
 	@Override
 	public PetType parse(String text, Locale locale) throws ParseException {
+		PetTypeLookupEvent event = null;
+		if (LOOKUP_EVENTS.isEnabled()) {
+			event = new PetTypeLookupEvent();
+			event.begin();
+		}
 		Collection<PetType> findPetTypes = this.types.findPetTypes();
+		PetType found = null;
 		for (PetType type : findPetTypes) {
 			if (Objects.equals(type.getName(), text)) {
-				return type;
+				found = type;
+				break;
 			}
 		}
-		throw new ParseException("type not found: " + text, 0);
+		if (event != null) {
+			event.end();
+			if (event.shouldCommit()) {
+				event.name = text;
+				event.types = findPetTypes.size();
+				event.found = found != null;
+				event.commit();
+			}
+		}
+		if (found == null) {
+			throw new ParseException("type not found: " + text, 0);
+		}
+		return found;
 	}
 
 }
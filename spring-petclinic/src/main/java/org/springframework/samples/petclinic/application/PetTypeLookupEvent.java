@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.application;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a pet type looked up by name by the {@link PetTypeFormatter}.
+ */
+@Name("org.springframework.samples.petclinic.PetTypeLookup")
+@Label("Pet Type Lookup")
+@Category({ "Pet Clinic", "Web" })
+@Description("Pet type parsed from its name")
+@StackTrace(false)
+class PetTypeLookupEvent extends Event {
+
+	@Label("Name")
+	String name;
+
+	@Label("Types")
+	@Description("Pet types searched for the name")
+	int types;
+
+	@Label("Found")
+	boolean found;
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.application;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Slice;
+import org.springframework.samples.petclinic.adapter.out.ChangeOutbox;
+import org.springframework.samples.petclinic.adapter.out.StatisticsCounters;
+import org.springframework.samples.petclinic.adapter.out.VisitArchive;
+import org.springframework.samples.petclinic.adapter.out.VisitHistory;
+import org.springframework.samples.petclinic.adapter.out.VisitRepository;
+import org.springframework.samples.petclinic.adapter.out.WriteBehindVisitQueue;
+import org.springframework.samples.petclinic.domain.PetNotFoundException;
+import org.springframework.samples.petclinic.domain.Visit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Books visits for pets.
+ * <p>
+ * A booking is a single insert guarded by the pet's owner, so its cost does not depend on
+ * how many pets or past visits the owner has. The insert, its event in the
+ * {@link ChangeOutbox} and its count in the {@link StatisticsCounters} share one
+ * transaction.
+ * </p>
+ * <p>
+ * With write-behind booking enabled, visits are handed to the
+ * {@link WriteBehindVisitQueue} instead and written to the database in batches. The
+ * request then no longer learns whether the pet belongs to the owner; the queue drops
+ * such visits when it writes them.
+ * </p>
+ * <p>
+ * Visit history is read a page of {@value #PAGE_SIZE} visits at a time from the
+ * {@link VisitHistory}, so showing a pet costs the same for a pet with a long history.
+ * </p>
+ * <p>
+ * Visits past the archive age are kept in the {@link VisitArchive} and only read on
+ * request.
+ * </p>
+ */
+@Service
+public class VisitService {
+
+	/**
+	 * The number of visits per page of visit history.
+	 */
+	public static final int PAGE_SIZE = 5;
+
+	private final VisitRepository visits;
+
+	private final VisitHistory history;
+
+	private final VisitArchive archive;
+
+	private final ChangeOutbox outbox;
+
+	private final StatisticsCounters statistics;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final WriteBehindVisitQueue writeBehind;
+
+	public VisitService(VisitRepository visits, VisitHistory history, VisitArchive archive, ChangeOutbox outbox,
+			StatisticsCounters statistics, PlatformTransactionManager transactionManager,
+			ObjectProvider<WriteBehindVisitQueue> writeBehind) {
+		this.visits = visits;
+		this.history = history;
+		this.archive = archive;
+		this.outbox = outbox;
+		this.statistics = statistics;
+		// a write-behind booking must not open a transaction, so it is started on demand
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.writeBehind = writeBehind.getIfAvailable();
+	}
+
+	/**
+	 * Book a visit for a pet of the given owner.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet to book the visit for
+	 * @param visit the visit to book
+	 * @throws PetNotFoundException if the owner has no pet with that id, unless the visit
+	 * is queued for write-behind
+	 */
+	public void bookVisit(int ownerId, int petId, Visit visit) {
+		if (this.writeBehind != null && this.writeBehind.offer(ownerId, petId, visit)) {
+			return;
+		}
+		this.transactionTemplate.executeWithoutResult(status -> {
+			int inserted = this.visits.insertForOwnedPet(ownerId, petId, visit.getDate(), visit.getDescription());
+			if (inserted == 0) {
+				throw new PetNotFoundException(ownerId, petId);
+			}
+			this.outbox.visitBooked(ownerId, petId, visit.getDate(), visit.getDescription());
+			this.statistics.visitsBooked(List.of(visit.getDate()));
+		});
+	}
+
+	/**
+	 * Return the most recent visits of every pet of the given owner.
+	 * @param ownerId the owner
+	 * @return the first page of visits per pet id; pets without visits are left out
+	 */
+	public Map<Integer, Slice<Visit>> findRecentVisits(int ownerId) {
+		return this.history.findRecentByOwner(ownerId, PAGE_SIZE);
+	}
+
+	/**
+	 * Return the most recent visits of a pet of the given owner.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet
+	 * @return the first page of visits, empty if the owner has no such pet
+	 */
+	public Slice<Visit> findRecentVisits(int ownerId, int petId) {
+		return this.history.findByPet(ownerId, petId, PAGE_SIZE);
+	}
+
+	/**
+	 * Return the page of visits of a pet of the given owner that precedes the given
+	 * visit.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet
+	 * @param date the date of the oldest visit already shown, <code>null</code> if it has
+	 * none
+	 * @param id the id of the oldest visit already shown
+	 * @return the next page of visits, empty if the owner has no such pet
+	 */
+	public Slice<Visit> findVisitsBefore(int ownerId, int petId, LocalDate date, int id) {
+		return this.history.findByPetBefore(ownerId, petId, date, id, PAGE_SIZE);
+	}
+
+	/**
+	 * Return the archived visits of a pet of the given owner.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet
+	 * @return the archived visits in date order, empty if the owner has no such pet
+	 */
+	public List<Visit> findArchivedVisits(int ownerId, int petId) {
+		return this.archive.findByPet(ownerId, petId);
+	}
+
+}
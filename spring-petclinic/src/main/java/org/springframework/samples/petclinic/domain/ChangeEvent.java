@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.domain;
+
+import java.time.Instant;
+
+/**
+ * A change to an owner, a pet or the visits of a pet, as published on the change feed.
+ *
+ * @param offset the position of the event in the change feed; consumers resume after the
+ * last offset they have seen
+ * @param aggregate the kind of record that changed, <code>owner</code> or
+ * <code>pet</code>
+ * @param aggregateId the id of the record that changed
+ * @param type what happened, for example <code>created</code> or
+ * <code>visit-booked</code>
+ * @param payload the state after the change as a JSON object
+ * @param createdAt the time the change was recorded
+ */
+public record ChangeEvent(long offset, String aggregate, int aggregateId, String type, String payload,
+		Instant createdAt) {
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.domain;
+
+import java.util.List;
+
+/**
+ * Counts of pets, visits and owners for the clinic management.
+ *
+ * @param petsPerType the number of pets of each type, by type name
+ * @param visitsPerMonth the number of visits in each month, archived visits included, by
+ * month in <code>yyyy-MM</code> form
+ * @param ownersPerWeek the number of owners registered in each week, by the date of the
+ * Monday starting the week
+ */
+public record ClinicStatistics(List<Count> petsPerType, List<Count> visitsPerMonth, List<Count> ownersPerWeek) {
+
+	/**
+	 * The number of records in one group.
+	 *
+	 * @param label what the records have in common
+	 * @param total the number of records
+	 */
+	public record Count(String label, long total) {
+
+	}
+
+}
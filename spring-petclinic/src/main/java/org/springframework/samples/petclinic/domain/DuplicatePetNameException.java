@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.domain;
+
+/**
+ * Thrown when a {@link Pet} would get the name of another pet of the same {@link Owner}.
+ * <p>
+ * Like {@link NotFoundException}, this is an expected outcome of a form submission, so no
+ * stack trace is captured.
+ * </p>
+ */
+public class DuplicatePetNameException extends RuntimeException {
+
+	private final int ownerId;
+
+	private final String name;
+
+	public DuplicatePetNameException(int ownerId, String name) {
+		super(null, null, false, false);
+		this.ownerId = ownerId;
+		this.name = name;
+	}
+
+	public int getOwnerId() {
+		return this.ownerId;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public String getMessage() {
+		return "Owner with id " + this.ownerId + " already has a pet named " + this.name;
+	}
+
+}
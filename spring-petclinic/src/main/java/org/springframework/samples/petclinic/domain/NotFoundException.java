@@ -0,0 +1,31 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.domain;
+
+/**
+ * Signals that a requested entity does not exist.
+ * <p>
+ * Missing records are an expected outcome (stale links, crawlers guessing ids), so these
+ * exceptions do not capture a stack trace and build their message only when asked for it.
+ * </p>
+ */
+public abstract class NotFoundException extends RuntimeException {
+
+	protected NotFoundException() {
+		super(null, null, false, false);
+	}
+
+}
@@ -15,10 +15,12 @@
  */
 package org.springframework.samples.petclinic.domain;
 
+import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
 
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.util.Assert;
 
@@ -30,11 +32,23 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.NotBlank;
 
 /**
  * Simple JavaBean domain object representing an owner.
+ * <p>
+ * Pets are looked up by id and by name through a {@link PetIndex} built on first use, so
+ * owners with thousands of pets do not scan the list on every lookup.
+ * </p>
+ * <p>
+ * Owners are searched by the prefix of their {@link #lastNameKey(String) last name key},
+ * a case- and accent-folded copy of the last name kept in its own column. Its values
+ * compare the same under every collation, so all databases can serve prefix searches with
+ * a range scan of its index.
+ * </p>
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -45,8 +59,12 @@ import jakarta.validation.constraints.NotBlank;
  */
 @Entity
 @Table(name = "owners")
+@DynamicUpdate
 public class Owner extends Person {
 
+	@Column
+	private String lastNameKey;
+
 	@Column
 	@NotBlank
 	private String address;
@@ -60,11 +78,23 @@ public class Owner extends Person {
 	@Pattern(regexp = "\\d{10}", message = "{telephone.invalid}")
 	private String telephone;
 
+	@Version
+	private Integer version;
+
 	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
 	@JoinColumn(name = "owner_id")
 	@OrderBy("name")
 	private final List<Pet> pets = new ArrayList<>();
 
+	@Transient
+	private transient PetIndex petIndex;
+
+	@Override
+	public void setLastName(String lastName) {
+		super.setLastName(lastName);
+		this.lastNameKey = lastNameKey(lastName);
+	}
+
 	public String getAddress() {
 		return this.address;
 	}
@@ -89,13 +119,26 @@ public class Owner extends Person {
 		this.telephone = telephone;
 	}
 
+	public Integer getVersion() {
+		return this.version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 	public List<Pet> getPets() {
 		return this.pets;
 	}
 
 	public void addPet(Pet pet) {
 		if (pet.isNew()) {
+			PetIndex index = this.petIndex;
+			boolean current = index != null && !index.isStale(getPets());
 			getPets().add(pet);
+			if (current) {
+				index.added(pet);
+			}
 		}
 	}
 
@@ -114,15 +157,7 @@ public class Owner extends Person {
 	 * @return the Pet with the given id, or null if no such Pet exists for this Owner
 	 */
 	public Pet getPet(Integer id) {
-		for (Pet pet : getPets()) {
-			if (!pet.isNew()) {
-				Integer compId = pet.getId();
-				if (Objects.equals(compId, id)) {
-					return pet;
-				}
-			}
-		}
-		return null;
+		return (id != null) ? petIndex().get(id) : null;
 	}
 
 	/**
@@ -132,15 +167,15 @@ public class Owner extends Person {
 	 * @return the Pet with the given name, or null if no such Pet exists for this Owner
 	 */
 	public Pet getPet(String name, boolean ignoreNew) {
-		for (Pet pet : getPets()) {
-			String compName = pet.getName();
-			if (compName != null && compName.equalsIgnoreCase(name)) {
-				if (!ignoreNew || !pet.isNew()) {
-					return pet;
-				}
-			}
+		return petIndex().get(name, ignoreNew);
+	}
+
+	private PetIndex petIndex() {
+		List<Pet> pets = getPets();
+		if (this.petIndex == null || this.petIndex.isStale(pets)) {
+			this.petIndex = new PetIndex(pets);
 		}
-		return null;
+		return this.petIndex;
 	}
 
 	@Override
@@ -172,4 +207,29 @@ public class Owner extends Person {
 		pet.addVisit(visit);
 	}
 
+	/**
+	 * Fold a last name, or a prefix of one, to the form stored as the last name key:
+	 * lower case, without accents or other combining marks. Stored keys were filled by a
+	 * copy of this method in the V9 migration; changing the folding needs a migration
+	 * that fills them again.
+	 * @param lastName the last name, may be <code>null</code>
+	 * @return the folded last name, <code>null</code> for <code>null</code>
+	 */
+	public static String lastNameKey(String lastName) {
+		if (lastName == null) {
+			return null;
+		}
+		String decomposed = Normalizer.normalize(lastName.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+		StringBuilder key = new StringBuilder(decomposed.length());
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			int type = Character.getType(c);
+			if (type != Character.NON_SPACING_MARK && type != Character.COMBINING_SPACING_MARK
+					&& type != Character.ENCLOSING_MARK) {
+				key.append(c);
+			}
+		}
+		return Normalizer.normalize(key, Normalizer.Form.NFC);
+	}
+
 }
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import jakarta.persistence.CascadeType;
@@ -31,6 +32,8 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
 /**
  * Simple business object representing a pet.
@@ -42,6 +45,7 @@ import jakarta.persistence.Table;
  */
 @Entity
 @Table(name = "pets")
+@DynamicUpdate
 public class Pet extends NamedEntity {
 
 	@Column
@@ -52,11 +56,27 @@ public class Pet extends NamedEntity {
 	@JoinColumn(name = "type_id")
 	private PetType type;
 
-	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+	// not loaded with the owner: views read the visit history a page at a time
+	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
 	@JoinColumn(name = "pet_id")
 	@OrderBy("date ASC")
 	private final Set<Visit> visits = new LinkedHashSet<>();
 
+	@Version
+	private Integer version;
+
+	@Transient
+	private transient PetIndex index;
+
+	@Override
+	public void setName(String name) {
+		String previous = getName();
+		super.setName(name);
+		if (this.index != null) {
+			this.index.renamed(this, previous);
+		}
+	}
+
 	public void setBirthDate(LocalDate birthDate) {
 		this.birthDate = birthDate;
 	}
@@ -73,6 +93,14 @@ public class Pet extends NamedEntity {
 		this.type = type;
 	}
 
+	public Integer getVersion() {
+		return this.version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 	public Collection<Visit> getVisits() {
 		return this.visits;
 	}
@@ -81,4 +109,8 @@ public class Pet extends NamedEntity {
 		getVisits().add(visit);
 	}
 
+	void setIndex(PetIndex index) {
+		this.index = index;
+	}
+
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.domain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup tables for the pets of an {@link Owner}, by id and by normalized name.
+ * <p>
+ * The index is built on the first lookup and kept up to date by {@link Owner#addPet} and
+ * {@link Pet#setName}. Pets that were new when they were indexed get their id entry on
+ * the first lookup after they have been saved. Changes to the pet list that bypass the
+ * owner, such as a collection replaced during a merge, are detected from the identity and
+ * size of the list, and the owner then builds a new index.
+ * </p>
+ * <p>
+ * Names are normalized by folding every character the way {@link String#equalsIgnoreCase}
+ * compares them, so a lookup matches exactly the pets a case-insensitive scan would find,
+ * in list order.
+ * </p>
+ */
+final class PetIndex {
+
+	private final List<Pet> pets;
+
+	private int size;
+
+	private final Map<Integer, Pet> byId = new HashMap<>();
+
+	private final Map<String, List<Pet>> byName = new HashMap<>();
+
+	private final List<Pet> unsaved = new ArrayList<>();
+
+	PetIndex(List<Pet> pets) {
+		this.pets = pets;
+		this.size = pets.size();
+		for (Pet pet : pets) {
+			index(pet);
+		}
+	}
+
+	boolean isStale(List<Pet> pets) {
+		return pets != this.pets || pets.size() != this.size;
+	}
+
+	/**
+	 * Index a pet that has just been appended to the owner's list.
+	 */
+	void added(Pet pet) {
+		index(pet);
+		this.size = this.pets.size();
+	}
+
+	/**
+	 * Move a pet to the entry of its new name.
+	 */
+	void renamed(Pet pet, String previousName) {
+		String previous = normalize(previousName);
+		if (previous != null) {
+			List<Pet> candidates = this.byName.get(previous);
+			if (candidates != null) {
+				candidates.removeIf(candidate -> candidate == pet);
+				if (candidates.isEmpty()) {
+					this.byName.remove(previous);
+				}
+			}
+		}
+		String name = normalize(pet.getName());
+		if (name != null) {
+			List<Pet> candidates = this.byName.computeIfAbsent(name, key -> new ArrayList<>(1));
+			candidates.add(pet);
+			if (candidates.size() > 1) {
+				// pets sharing a name are found in list order
+				candidates.sort(Comparator.comparingInt(this::position));
+			}
+		}
+	}
+
+	Pet get(Integer id) {
+		Pet pet = this.byId.get(id);
+		if (pet == null && !this.unsaved.isEmpty()) {
+			for (Iterator<Pet> iterator = this.unsaved.iterator(); iterator.hasNext();) {
+				Pet candidate = iterator.next();
+				if (!candidate.isNew()) {
+					this.byId.putIfAbsent(candidate.getId(), candidate);
+					iterator.remove();
+				}
+			}
+			pet = this.byId.get(id);
+		}
+		return pet;
+	}
+
+	Pet get(String name, boolean ignoreNew) {
+		String key = normalize(name);
+		List<Pet> candidates = (key != null) ? this.byName.get(key) : null;
+		if (candidates != null) {
+			for (Pet pet : candidates) {
+				if (!ignoreNew || !pet.isNew()) {
+					return pet;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void index(Pet pet) {
+		pet.setIndex(this);
+		if (pet.isNew()) {
+			this.unsaved.add(pet);
+		}
+		else {
+			this.byId.putIfAbsent(pet.getId(), pet);
+		}
+		String name = normalize(pet.getName());
+		if (name != null) {
+			this.byName.computeIfAbsent(name, key -> new ArrayList<>(1)).add(pet);
+		}
+	}
+
+	private int position(Pet pet) {
+		for (int i = 0; i < this.pets.size(); i++) {
+			if (this.pets.get(i) == pet) {
+				return i;
+			}
+		}
+		return Integer.MAX_VALUE;
+	}
+
+	static String normalize(String name) {
+		if (name == null) {
+			return null;
+		}
+		StringBuilder normalized = new StringBuilder(name.length());
+		name.codePoints()
+			.map(codePoint -> Character.toLowerCase(Character.toUpperCase(codePoint)))
+			.forEach(normalized::appendCodePoint);
+		return normalized.toString();
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.domain;
+
+/**
+ * Thrown when an {@link Owner} has no {@link Pet} with a given id.
+ */
+public class PetNotFoundException extends NotFoundException {
+
+	private final int ownerId;
+
+	private final int petId;
+
+	public PetNotFoundException(int ownerId, int petId) {
+		this.ownerId = ownerId;
+		this.petId = petId;
+	}
+
+	public int getOwnerId() {
+		return this.ownerId;
+	}
+
+	public int getPetId() {
+		return this.petId;
+	}
+
+	@Override
+	public String getMessage() {
+		return "Pet with id " + this.petId + " not found for owner with id " + this.ownerId;
+	}
+
+}
@@ -22,7 +22,9 @@ import org.springframework.format.annotation.DateTimeFormat;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 /**
  * Simple JavaBean domain object representing a visit.
@@ -39,8 +41,12 @@ public class Visit extends BaseEntity {
 	private LocalDate date;
 
 	@NotBlank
+	@Size(max = 255)
 	private String description;
 
+	@Version
+	private Integer version;
+
 	/**
 	 * Creates a new instance of Visit for the current date
 	 */
@@ -64,4 +70,12 @@ public class Visit extends BaseEntity {
 		this.description = description;
 	}
 
+	public Integer getVersion() {
+		return this.version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 }
@@ -0,0 +1,3 @@
+-- owners are searched by the prefix of their last name key only
+CREATE INDEX IF NOT EXISTS owners_last_name_key ON owners (last_name_key);
+DROP INDEX IF EXISTS owners_last_name;
@@ -0,0 +1,3 @@
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE pets ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE visits ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
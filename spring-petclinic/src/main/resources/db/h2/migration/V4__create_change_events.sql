@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS change_events (
+  id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  aggregate    VARCHAR(20) NOT NULL,
+  aggregate_id INTEGER NOT NULL,
+  type         VARCHAR(30) NOT NULL,
+  payload      VARCHAR NOT NULL,
+  created_at   TIMESTAMP NOT NULL,
+  feed_offset  BIGINT
+);
+CREATE UNIQUE INDEX IF NOT EXISTS change_events_feed_offset ON change_events (feed_offset);
@@ -0,0 +1,2 @@
+-- visits of a pet are read in date order
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
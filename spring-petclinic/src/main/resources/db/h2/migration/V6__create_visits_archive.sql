@@ -0,0 +1,11 @@
+-- visits older than the archive age are moved here, so that the visits table and its
+-- indexes only hold recent history
+CREATE TABLE IF NOT EXISTS visits_archive (
+  id          INTEGER PRIMARY KEY,
+  pet_id      INTEGER,
+  visit_date  DATE,
+  description VARCHAR(255),
+  version     INTEGER DEFAULT 0 NOT NULL
+);
+ALTER TABLE visits_archive ADD CONSTRAINT IF NOT EXISTS fk_visits_archive_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
+CREATE INDEX IF NOT EXISTS visits_archive_pet_id_visit_date ON visits_archive (pet_id, visit_date);
@@ -0,0 +1,2 @@
+-- case- and accent-folded copy of the last name, filled by V9 and kept by the Owner entity
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS last_name_key VARCHAR(30);
@@ -0,0 +1,7 @@
+-- the last offset handed out on the change feed, kept apart from change_events so that
+-- purging relayed events never restarts the numbering; relays lock the row to take turns
+CREATE TABLE IF NOT EXISTS change_feed_offset (
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
+  last_offset BIGINT UNSIGNED NOT NULL
+) engine=InnoDB;
+INSERT INTO change_feed_offset (id, last_offset) SELECT 1, COALESCE(MAX(feed_offset), 0) FROM change_events;
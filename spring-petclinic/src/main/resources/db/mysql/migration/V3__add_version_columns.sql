@@ -0,0 +1,21 @@
+-- MySQL has no ADD COLUMN IF NOT EXISTS: skip the tables that already have the column
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'version') = 0,
+  'ALTER TABLE owners ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0');
+PREPARE add_version FROM @ddl;
+EXECUTE add_version;
+DEALLOCATE PREPARE add_version;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'pets' AND column_name = 'version') = 0,
+  'ALTER TABLE pets ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0');
+PREPARE add_version FROM @ddl;
+EXECUTE add_version;
+DEALLOCATE PREPARE add_version;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'visits' AND column_name = 'version') = 0,
+  'ALTER TABLE visits ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0');
+PREPARE add_version FROM @ddl;
+EXECUTE add_version;
+DEALLOCATE PREPARE add_version;
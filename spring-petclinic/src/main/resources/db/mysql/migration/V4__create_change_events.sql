@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS change_events (
+  id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  aggregate VARCHAR(20) NOT NULL,
+  aggregate_id INT(4) UNSIGNED NOT NULL,
+  type VARCHAR(30) NOT NULL,
+  payload TEXT NOT NULL,
+  created_at TIMESTAMP NOT NULL,
+  feed_offset BIGINT UNSIGNED,
+  UNIQUE INDEX(feed_offset)
+) engine=InnoDB;
@@ -0,0 +1,2 @@
+-- visits of a pet are read in date order; the index also serves the foreign key on pet_id
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
@@ -0,0 +1,12 @@
+-- visits older than the archive age are moved here, so that the visits table and its
+-- indexes only hold recent history; not partitioned, as InnoDB does not combine
+-- partitioning with foreign keys
+CREATE TABLE IF NOT EXISTS visits_archive (
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
+  pet_id INT(4) UNSIGNED,
+  visit_date DATE,
+  description VARCHAR(255),
+  version INT NOT NULL DEFAULT 0,
+  INDEX visits_archive_pet_id_visit_date (pet_id, visit_date),
+  FOREIGN KEY (pet_id) REFERENCES pets(id)
+) engine=InnoDB;
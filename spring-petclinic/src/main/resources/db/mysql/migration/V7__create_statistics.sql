@@ -0,0 +1,28 @@
+-- owners registered from now on get the date of their registration; earlier owners have
+-- none and are left out of the weekly counts
+ALTER TABLE owners ADD COLUMN registered_on DATE;
+ALTER TABLE owners MODIFY COLUMN registered_on DATE DEFAULT (CURRENT_DATE);
+
+-- counts maintained in the transaction of every write, so the statistics never scan
+-- pets or visits
+CREATE TABLE IF NOT EXISTS pet_type_statistics (
+  type_id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
+  total BIGINT NOT NULL
+) engine=InnoDB;
+CREATE TABLE IF NOT EXISTS visit_month_statistics (
+  visit_month DATE NOT NULL PRIMARY KEY,
+  total BIGINT NOT NULL
+) engine=InnoDB;
+CREATE TABLE IF NOT EXISTS owner_week_statistics (
+  registration_week DATE NOT NULL PRIMARY KEY,
+  total BIGINT NOT NULL
+) engine=InnoDB;
+
+-- backfill; later corrections are made with petclinic.statistics.rebuild
+INSERT INTO pet_type_statistics (type_id, total)
+SELECT type_id, COUNT(*) FROM pets WHERE type_id IS NOT NULL GROUP BY type_id;
+INSERT INTO visit_month_statistics (visit_month, total)
+SELECT visit_date - INTERVAL (DAYOFMONTH(visit_date) - 1) DAY, COUNT(*)
+FROM (SELECT visit_date FROM visits UNION ALL SELECT visit_date FROM visits_archive) all_visits
+WHERE visit_date IS NOT NULL
+GROUP BY visit_date - INTERVAL (DAYOFMONTH(visit_date) - 1) DAY;
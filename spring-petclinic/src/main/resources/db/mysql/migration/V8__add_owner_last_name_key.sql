@@ -0,0 +1,3 @@
+-- case- and accent-folded copy of the last name, filled by V9 and kept by the Owner entity;
+-- a binary collation compares it byte by byte, the same as the folding in Java does
+ALTER TABLE owners ADD COLUMN last_name_key VARCHAR(30) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin;
@@ -0,0 +1,5 @@
+-- Built concurrently, so a rolling deploy does not block writes to large tables.
+-- Owners are searched by the prefix of their last name key only, which replaces the
+-- text_pattern_ops index on last_name.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS owners_last_name_key_idx ON owners (last_name_key);
+DROP INDEX CONCURRENTLY IF EXISTS owners_last_name_pattern_idx;
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS change_events (
+  id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  aggregate    TEXT NOT NULL,
+  aggregate_id INT NOT NULL,
+  type         TEXT NOT NULL,
+  payload      TEXT NOT NULL,
+  created_at   TIMESTAMP NOT NULL,
+  feed_offset  BIGINT UNIQUE
+);
@@ -0,0 +1,9 @@
+-- Built concurrently, so a rolling deploy does not block writes to large tables.
+-- Prefix searches (LIKE 'Dav%') can only use a b-tree index under a non-C collation
+-- when it is built with text_pattern_ops; it serves equality lookups as well.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS owners_last_name_pattern_idx ON owners (last_name text_pattern_ops);
+DROP INDEX CONCURRENTLY IF EXISTS owners_last_name_idx;
+
+-- visits of a pet are read in date order
+CREATE INDEX CONCURRENTLY IF NOT EXISTS visits_pet_id_visit_date_idx ON visits (pet_id, visit_date);
+DROP INDEX CONCURRENTLY IF EXISTS visits_pet_id_idx;
@@ -0,0 +1,12 @@
+-- visits older than the archive age are moved here, so that the visits table and its
+-- indexes only hold recent history. Partitioned by year of the visit; the archive job
+-- creates the partition of a year before moving its first visit.
+CREATE TABLE IF NOT EXISTS visits_archive (
+  id          INT NOT NULL,
+  pet_id      INT REFERENCES pets (id),
+  visit_date  DATE NOT NULL,
+  description TEXT,
+  version     INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (id, visit_date)
+) PARTITION BY RANGE (visit_date);
+CREATE INDEX IF NOT EXISTS visits_archive_pet_id_visit_date_idx ON visits_archive (pet_id, visit_date);
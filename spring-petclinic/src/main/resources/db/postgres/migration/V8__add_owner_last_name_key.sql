@@ -0,0 +1,3 @@
+-- case- and accent-folded copy of the last name, filled by V9 and kept by the Owner entity;
+-- under the C collation a plain b-tree index serves prefix searches (LIKE 'dav%')
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS last_name_key VARCHAR(30) COLLATE "C";
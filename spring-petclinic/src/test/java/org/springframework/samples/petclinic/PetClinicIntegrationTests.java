@@ -56,6 +56,17 @@ public class PetClinicIntegrationTests {
 		assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
 	}
 
+	@Test
+	void testStaticResources() {
+		RestTemplate template = builder.rootUri("http://localhost:" + port).build();
+		assertThat(template.getForEntity("/resources/css/petclinic.css", String.class).getStatusCode())
+			.isEqualTo(HttpStatus.OK);
+		assertThat(template.getForEntity("/resources/images/favicon.png", byte[].class).getStatusCode())
+			.isEqualTo(HttpStatus.OK);
+		assertThat(template.getForEntity("/webjars/htmx.org/dist/htmx.min.js", String.class).getStatusCode())
+			.isEqualTo(HttpStatus.OK);
+	}
+
 	public static void main(String[] args) {
 		SpringApplication.run(PetClinicApplication.class, args);
 	}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.in;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.webmvc.test.autoconfigure.MockMvcPrint;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * Regression test for the bytes allocated per request by the key pages, measured on the
+ * request thread with
+ * {@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()} and compared
+ * with the baseline in <code>allocation-baseline.properties</code>. A page allocating
+ * more than {@link #TOLERANCE} over its baseline fails.
+ * <p>
+ * The build runs this test in a JVM of its own, since tests running before it, such as
+ * starting a flight recording, change what every request allocates. Every page is warmed
+ * up first, so that caches are filled and the JIT compiler has had its go, then the
+ * median of the measured requests is taken. After a change that intentionally allocates
+ * more or less, record a new baseline with
+ * <code>./mvnw test -Dtest=AllocationRegressionTests -Dpetclinic.allocation.record=true</code>
+ * (or <code>./gradlew allocationRegressionTest -Ppetclinic.allocation.record=true</code>)
+ * and commit it.
+ * </p>
+ */
+@SpringBootTest
+// results are not kept for printing, which would be measured too
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE, printOnlyOnFailure = false)
+class AllocationRegressionTests {
+
+	static final String BASELINE = "allocation-baseline.properties";
+
+	static final double TOLERANCE = 0.10;
+
+	private static final int WARMUP_REQUESTS = 200;
+
+	private static final int MEASURED_REQUESTS = 51;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void testAllocationPerRequestStaysWithinBaseline() throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+				"Thread allocation is not measured by this JVM");
+
+		Map<String, Long> allocated = new LinkedHashMap<>();
+		pages().forEach((page, request) -> allocated.put(page, allocatedBytesPerRequest(threads, request)));
+
+		if (Boolean.getBoolean("petclinic.allocation.record")) {
+			record(allocated);
+			return;
+		}
+		Properties baseline = baseline();
+		SoftAssertions softly = new SoftAssertions();
+		allocated.forEach((page, bytes) -> {
+			String recorded = baseline.getProperty(page);
+			softly.assertThat(recorded).as("baseline of %s", page).isNotNull();
+			if (recorded != null) {
+				long limit = (long) (Long.parseLong(recorded) * (1 + TOLERANCE));
+				softly.assertThat(bytes)
+					.as("bytes allocated by %s, baseline %s", page, recorded)
+					.isLessThanOrEqualTo(limit);
+			}
+		});
+		softly.assertAll();
+	}
+
+	private static Map<String, RequestBuilder> pages() {
+		Map<String, RequestBuilder> pages = new LinkedHashMap<>();
+		pages.put("owners", get("/owners").param("lastName", "Davis"));
+		pages.put("owner", get("/owners/{ownerId}", 1));
+		pages.put("vets.html", get("/vets.html"));
+		pages.put("vets", get("/vets").accept(MediaType.APPLICATION_JSON));
+		pages.put("pet.new", get("/owners/{ownerId}/pets/new", 1));
+		pages.put("pet.edit", get("/owners/{ownerId}/pets/{petId}/edit", 1, 1));
+		pages.put("visit.new", get("/owners/{ownerId}/pets/{petId}/visits/new", 1, 1));
+		return pages;
+	}
+
+	private long allocatedBytesPerRequest(com.sun.management.ThreadMXBean threads, RequestBuilder request) {
+		try {
+			for (int i = 0; i < WARMUP_REQUESTS; i++) {
+				perform(request);
+			}
+			long[] allocated = new long[MEASURED_REQUESTS];
+			for (int i = 0; i < MEASURED_REQUESTS; i++) {
+				long before = threads.getCurrentThreadAllocatedBytes();
+				MvcResult result = perform(request);
+				allocated[i] = threads.getCurrentThreadAllocatedBytes() - before;
+				assertThat(result.getResponse().getStatus()).isEqualTo(200);
+			}
+			Arrays.sort(allocated);
+			return allocated[MEASURED_REQUESTS / 2];
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private MvcResult perform(RequestBuilder request) throws Exception {
+		return this.mockMvc.perform(request).andReturn();
+	}
+
+	private Properties baseline() throws IOException {
+		Properties baseline = new Properties();
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(BASELINE)) {
+			assertThat(in).as("%s on the test classpath", BASELINE).isNotNull();
+			baseline.load(in);
+		}
+		return baseline;
+	}
+
+	private static void record(Map<String, Long> allocated) throws IOException {
+		List<String> lines = new ArrayList<>();
+		lines.add("# Bytes allocated per request, recorded by AllocationRegressionTests");
+		allocated.forEach((page, bytes) -> lines.add(page + "=" + bytes));
+		Path file = Path.of("src", "test", "resources", BASELINE);
+		Files.createDirectories(file.getParent());
+		Files.write(file, lines);
+	}
+
+}
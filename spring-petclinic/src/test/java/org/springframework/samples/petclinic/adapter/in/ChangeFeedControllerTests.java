@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.in;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.adapter.out.ChangeOutbox;
+import org.springframework.samples.petclinic.adapter.out.ChangeRelay;
+import org.springframework.samples.petclinic.domain.ChangeEvent;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link ChangeFeedController}
+ */
+@WebMvcTest(ChangeFeedController.class)
+class ChangeFeedControllerTests {
+
+	private static final ChangeEvent CREATED = new ChangeEvent(41, "owner", 11, "created", "{\"id\":11}",
+			Instant.parse("2026-03-14T09:00:00Z"));
+
+	private static final ChangeEvent UPDATED = new ChangeEvent(42, "owner", 11, "updated", "{\"id\":11}",
+			Instant.parse("2026-03-14T09:05:00Z"));
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private ChangeOutbox outbox;
+
+	@MockitoBean
+	private ChangeRelay relay;
+
+	@Test
+	void testChangesAsNewlineDelimitedJson() throws Exception {
+		given(this.outbox.readAfter(40, 2)).willReturn(List.of(CREATED, UPDATED));
+		mockMvc.perform(get("/changes").param("after", "40").param("limit", "2").accept(MediaType.APPLICATION_NDJSON))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+			.andExpect(content()
+				.string("""
+						{"offset":41,"aggregate":"owner","aggregateId":11,"type":"created","createdAt":"2026-03-14T09:00:00Z","payload":{"id":11}}
+						{"offset":42,"aggregate":"owner","aggregateId":11,"type":"updated","createdAt":"2026-03-14T09:05:00Z","payload":{"id":11}}
+						"""));
+	}
+
+	@Test
+	void testPageSizeIsCapped() throws Exception {
+		given(this.outbox.readAfter(0, ChangeFeedController.PAGE_SIZE)).willReturn(List.of(CREATED));
+		mockMvc.perform(get("/changes").param("limit", "1000000").accept(MediaType.APPLICATION_NDJSON))
+			.andExpect(status().isOk())
+			.andExpect(content().string(startsWith("{\"offset\":41")));
+	}
+
+	@Test
+	void testStreamResumesAfterLastEventId() throws Exception {
+		given(this.outbox.readAfter(41, ChangeFeedController.PAGE_SIZE)).willReturn(List.of(UPDATED));
+		mockMvc.perform(get("/changes").header("Last-Event-ID", "41").accept(MediaType.TEXT_EVENT_STREAM))
+			.andExpect(request().asyncStarted())
+			.andExpect(content().string(containsString("id:42\nevent:change\ndata:{\"offset\":42")));
+	}
+
+}
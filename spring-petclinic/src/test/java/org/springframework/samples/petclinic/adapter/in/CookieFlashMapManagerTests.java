@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.in;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.FlashMap;
+
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Test class for {@link CookieFlashMapManager}
+ */
+class CookieFlashMapManagerTests {
+
+	private final CookieFlashMapManager manager = new CookieFlashMapManager(
+			"test-secret".getBytes(StandardCharsets.UTF_8));
+
+	@Test
+	void testFlashAttributesSurviveRedirectWithoutSession() {
+		MockHttpServletRequest post = new MockHttpServletRequest("POST", "/owners/new");
+		MockHttpServletResponse redirect = new MockHttpServletResponse();
+		manager.saveOutputFlashMap(flashMap("/owners/1", "New Owner Created"), post, redirect);
+
+		Cookie cookie = redirect.getCookie(CookieFlashMapManager.COOKIE_NAME);
+		assertThat(cookie).isNotNull();
+		assertThat(post.getSession(false)).isNull();
+
+		MockHttpServletRequest get = new MockHttpServletRequest("GET", "/owners/1");
+		get.setCookies(cookie);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FlashMap input = manager.retrieveAndUpdate(get, response);
+
+		assertThat(input.get("message")).isEqualTo("New Owner Created");
+		assertThat(response.getCookie(CookieFlashMapManager.COOKIE_NAME).getMaxAge()).isZero();
+		assertThat(get.getSession(false)).isNull();
+	}
+
+	@Test
+	void testFlashAttributesAreNotMatchedForOtherPaths() {
+		MockHttpServletRequest post = new MockHttpServletRequest("POST", "/owners/new");
+		MockHttpServletResponse redirect = new MockHttpServletResponse();
+		manager.saveOutputFlashMap(flashMap("/owners/1", "New Owner Created"), post, redirect);
+
+		MockHttpServletRequest get = new MockHttpServletRequest("GET", "/owners/2");
+		get.setCookies(redirect.getCookie(CookieFlashMapManager.COOKIE_NAME));
+		assertNull(manager.retrieveAndUpdate(get, new MockHttpServletResponse()));
+	}
+
+	@Test
+	void testTamperedCookieIsIgnored() {
+		MockHttpServletRequest post = new MockHttpServletRequest("POST", "/owners/new");
+		MockHttpServletResponse redirect = new MockHttpServletResponse();
+		manager.saveOutputFlashMap(flashMap("/owners/1", "New Owner Created"), post, redirect);
+		String value = redirect.getCookie(CookieFlashMapManager.COOKIE_NAME).getValue();
+
+		CookieFlashMapManager other = new CookieFlashMapManager("other-secret".getBytes(StandardCharsets.UTF_8));
+		MockHttpServletRequest get = new MockHttpServletRequest("GET", "/owners/1");
+		get.setCookies(new Cookie(CookieFlashMapManager.COOKIE_NAME, value));
+		assertNull(other.retrieveAndUpdate(get, new MockHttpServletResponse()));
+
+		get = new MockHttpServletRequest("GET", "/owners/1");
+		get.setCookies(new Cookie(CookieFlashMapManager.COOKIE_NAME, "X" + value));
+		assertNull(manager.retrieveAndUpdate(get, new MockHttpServletResponse()));
+	}
+
+	@Test
+	void testOversizedFlashAttributesAreDropped() {
+		MockHttpServletRequest post = new MockHttpServletRequest("POST", "/owners/new");
+		MockHttpServletResponse redirect = new MockHttpServletResponse();
+		String message = "x".repeat(CookieFlashMapManager.MAX_COOKIE_VALUE_LENGTH);
+		manager.saveOutputFlashMap(flashMap("/owners/1", message), post, redirect);
+
+		Cookie cookie = redirect.getCookie(CookieFlashMapManager.COOKIE_NAME);
+		assertThat(cookie.getValue()).isEmpty();
+		assertThat(cookie.getMaxAge()).isZero();
+	}
+
+	@Test
+	void testAttributesBeyondModifiedUtf8LimitAreDropped() {
+		MockHttpServletRequest post = new MockHttpServletRequest("POST", "/owners/new");
+		MockHttpServletResponse redirect = new MockHttpServletResponse();
+		String message = "x".repeat(70_000);
+		manager.saveOutputFlashMap(flashMap("/owners/1", message), post, redirect);
+
+		Cookie cookie = redirect.getCookie(CookieFlashMapManager.COOKIE_NAME);
+		assertThat(cookie.getValue()).isEmpty();
+	}
+
+	private FlashMap flashMap(String targetPath, String message) {
+		FlashMap flashMap = new FlashMap();
+		flashMap.setTargetRequestPath(targetPath);
+		flashMap.put("message", message);
+		return flashMap;
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.in;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.samples.petclinic.domain.OwnerNotFoundException;
+import org.springframework.samples.petclinic.domain.PetNotFoundException;
+
+/**
+ * Test class for {@link ErrorPageAdvice}
+ */
+class ErrorPageAdviceTests {
+
+	private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	private final ErrorPageAdvice advice = new ErrorPageAdvice(new CompiledMessageSource("messages/messages"),
+			new StaticListableBeanFactory(Map.of("meterRegistry", registry)).getBeanProvider(MeterRegistry.class));
+
+	@Test
+	void testNotFoundExceptionsHaveNoStackTrace() {
+		assertThat(new OwnerNotFoundException(1).getStackTrace()).isEmpty();
+		assertThat(new PetNotFoundException(1, 2).getMessage())
+			.isEqualTo("Pet with id 2 not found for owner with id 1");
+	}
+
+	@Test
+	void testBodyIsRenderedOncePerMessage() {
+		ResponseEntity<byte[]> first = advice.handleNotFound(new OwnerNotFoundException(1), request, Locale.ENGLISH);
+		ResponseEntity<byte[]> second = advice.handleNotFound(new PetNotFoundException(1, 2), request, Locale.UK);
+		ResponseEntity<byte[]> german = advice.handleNotFound(new OwnerNotFoundException(1), request, Locale.GERMAN);
+
+		assertThat(first.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(second.getBody()).isSameAs(first.getBody());
+		assertThat(new String(german.getBody(), StandardCharsets.UTF_8))
+			.contains("Die angeforderte Seite wurde nicht gefunden.");
+	}
+
+	@Test
+	void testHomeLinkFollowsContextPath() {
+		request.setContextPath("/petclinic");
+		ResponseEntity<byte[]> page = advice.handleNotFound(new OwnerNotFoundException(1), request, Locale.ENGLISH);
+
+		assertThat(new String(page.getBody(), StandardCharsets.UTF_8)).contains("<a href=\"/petclinic/\">");
+	}
+
+	@Test
+	void testErrorsAreCountedByType() {
+		advice.handleNotFound(new OwnerNotFoundException(1), request, Locale.ENGLISH);
+		advice.handleNotFound(new OwnerNotFoundException(2), request, Locale.ENGLISH);
+		advice.handleNotFound(new PetNotFoundException(1, 2), request, Locale.ENGLISH);
+
+		assertThat(
+				registry.get(ErrorPageAdvice.METER_NAME).tag("exception", "OwnerNotFoundException").counter().count())
+			.isEqualTo(2);
+		assertThat(registry.get(ErrorPageAdvice.METER_NAME)
+			.tags("exception", "PetNotFoundException", "status", "404")
+			.counter()
+			.count()).isEqualTo(1);
+	}
+
+}
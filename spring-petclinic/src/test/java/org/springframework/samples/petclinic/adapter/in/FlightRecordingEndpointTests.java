@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.in;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Integration test for the {@link FlightRecordingEndpoint} and the pet clinic flight
+ * recorder events.
+ */
+@SpringBootTest(properties = "management.endpoint.flightrecording.access=unrestricted")
+@AutoConfigureMockMvc
+class FlightRecordingEndpointTests {
+
+	private static final String ENDPOINT = "/actuator/flightrecording";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@TempDir
+	Path directory;
+
+	@AfterEach
+	void stopRecording() throws Exception {
+		this.mockMvc.perform(delete(ENDPOINT));
+	}
+
+	@Test
+	void testRecordingIsStartedOnce() throws Exception {
+		this.mockMvc.perform(post(ENDPOINT).contentType(MediaType.APPLICATION_JSON).content("{\"duration\": \"2h\"}"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.state").value("RUNNING"))
+			.andExpect(jsonPath("$.duration").value("PT1H"));
+		this.mockMvc.perform(start()).andExpect(status().isTooManyRequests());
+	}
+
+	@Test
+	void testRecordingWithoutStartIsNotFound() throws Exception {
+		this.mockMvc.perform(get(ENDPOINT)).andExpect(status().isNotFound());
+		this.mockMvc.perform(delete(ENDPOINT)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testRecordingHoldsPetClinicEvents() throws Exception {
+		this.mockMvc.perform(start()).andExpect(status().isOk());
+		this.mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+		this.mockMvc.perform(get("/vets.html")).andExpect(status().isOk());
+		this.mockMvc.perform(get("/vets.html")).andExpect(status().isOk());
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/edit", 6, 7).param("name", "Samantha")
+				.param("type", "cat")
+				.param("birthDate", "2012-09-04")
+				.param("version", String.valueOf(this.owners.findById(6).get().getPet(7).getVersion())))
+			.andExpect(status().is3xxRedirection());
+
+		Path file = this.directory.resolve("petclinic.jfr");
+		Files.write(file,
+				this.mockMvc.perform(get(ENDPOINT))
+					.andExpect(status().isOk())
+					.andReturn()
+					.getResponse()
+					.getContentAsByteArray());
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+		assertThat(events).extracting(event -> event.getEventType().getName())
+			.doesNotContain("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty");
+
+		assertThat(events(events, "Request")).anySatisfy(event -> {
+			assertThat(event.getString("endpoint")).isEqualTo("OwnerController.showOwner");
+			assertThat(event.getString("uri")).isEqualTo("/owners/{ownerId}");
+			assertThat(event.getInt("ownerId")).isEqualTo(6);
+			assertThat(event.getInt("status")).isEqualTo(200);
+		});
+		assertThat(events(events, "Repository")).anySatisfy(event -> {
+			assertThat(event.getString("repository")).isEqualTo("VisitHistory");
+			assertThat(event.getString("method")).isEqualTo("findRecentByOwner");
+			assertThat(event.getLong("rows")).isEqualTo(2);
+		});
+		assertThat(events(events, "CacheLookup")).anySatisfy(event -> {
+			assertThat(event.getString("cache")).isEqualTo("vets");
+			assertThat(event.getBoolean("hit")).isTrue();
+		});
+		assertThat(events(events, "PetTypeLookup")).anySatisfy(event -> {
+			assertThat(event.getString("name")).isEqualTo("cat");
+			assertThat(event.getBoolean("found")).isTrue();
+		});
+	}
+
+	private static MockHttpServletRequestBuilder start() {
+		return post(ENDPOINT).contentType(MediaType.APPLICATION_JSON).content("{}");
+	}
+
+	private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+		return events.stream()
+			.filter(event -> event.getEventType().getName().equals("org.springframework.samples.petclinic." + name))
+			.toList();
+	}
+
+}
@@ -24,9 +24,13 @@ import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.samples.petclinic.adapter.in.OwnerController;
-import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.application.VisitService;
 import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.samples.petclinic.domain.OwnerNotFoundException;
 import org.springframework.samples.petclinic.domain.Pet;
 import org.springframework.samples.petclinic.domain.PetType;
 import org.springframework.samples.petclinic.domain.Visit;
@@ -37,19 +41,27 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.UUID;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
-import static org.hamcrest.Matchers.greaterThan;
-import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -72,7 +84,10 @@ class OwnerControllerTests {
 	private MockMvc mockMvc;
 
 	@MockitoBean
-	private OwnerRepository owners;
+	private OwnerService ownerService;
+
+	@MockitoBean
+	private VisitService visitService;
 
 	private Owner george() {
 		Owner george = new Owner();
@@ -82,6 +97,7 @@ class OwnerControllerTests {
 		george.setAddress("110 W. Liberty St.");
 		george.setCity("Madison");
 		george.setTelephone("6085551023");
+		george.setVersion(3);
 		Pet max = new Pet();
 		PetType dog = new PetType();
 		dog.setName("dog");
@@ -97,13 +113,17 @@ class OwnerControllerTests {
 	void setup() {
 
 		Owner george = george();
-		given(this.owners.findByLastNameStartingWith(eq("Franklin"), any(Pageable.class)))
+		given(this.ownerService.findOwners(eq("Franklin"), any(Pageable.class)))
 			.willReturn(new PageImpl<>(List.of(george)));
 
-		given(this.owners.findById(TEST_OWNER_ID)).willReturn(Optional.of(george));
+		given(this.ownerService.findOwner(anyInt())).willAnswer(invocation -> {
+			throw new OwnerNotFoundException(invocation.getArgument(0));
+		});
+		willReturn(george).given(this.ownerService).findOwner(TEST_OWNER_ID);
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
-		george.getPet("Max").getVisits().add(visit);
+		given(this.visitService.findRecentVisits(TEST_OWNER_ID))
+			.willReturn(Map.of(george.getPet("Max").getId(), new SliceImpl<>(List.of(visit))));
 
 	}
 
@@ -112,6 +132,7 @@ class OwnerControllerTests {
 		mockMvc.perform(get("/owners/new"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeExists("owner"))
+			.andExpect(model().attributeExists("idempotencyToken"))
 			.andExpect(view().name("owners/createOrUpdateOwnerForm"));
 	}
 
@@ -148,14 +169,14 @@ class OwnerControllerTests {
 	@Test
 	void testProcessFindFormSuccess() throws Exception {
 		Page<Owner> tasks = new PageImpl<>(List.of(george(), new Owner()));
-		when(this.owners.findByLastNameStartingWith(anyString(), any(Pageable.class))).thenReturn(tasks);
+		when(this.ownerService.findOwners(anyString(), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
 	}
 
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
 		Page<Owner> tasks = new PageImpl<>(List.of(george()));
-		when(this.owners.findByLastNameStartingWith(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
+		when(this.ownerService.findOwners(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Franklin"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
@@ -164,7 +185,7 @@ class OwnerControllerTests {
 	@Test
 	void testProcessFindFormNoOwnersFound() throws Exception {
 		Page<Owner> tasks = new PageImpl<>(List.of());
-		when(this.owners.findByLastNameStartingWith(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
+		when(this.ownerService.findOwners(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Unknown Surname"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeHasFieldErrors("owner", "lastName"))
@@ -199,10 +220,27 @@ class OwnerControllerTests {
 	}
 
 	@Test
-	void testProcessUpdateOwnerFormUnchangedSuccess() throws Exception {
+	void testProcessUpdateOwnerFormDoesNotLoadOwner() throws Exception {
+		mockMvc
+			.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "1616291589")
+				.param("version", "0"))
+			.andExpect(status().is3xxRedirection());
+		verify(this.ownerService, never()).findOwner(anyInt());
+		verify(this.ownerService).updateOwner(eq(TEST_OWNER_ID),
+				argThat(owner -> Integer.valueOf(TEST_OWNER_ID).equals(owner.getId())
+						&& "Joe".equals(owner.getFirstName()) && Integer.valueOf(0).equals(owner.getVersion())));
+	}
+
+	@Test
+	void testProcessUpdateOwnerFormWithoutFieldsHasErrors() throws Exception {
 		mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID))
-			.andExpect(status().is3xxRedirection())
-			.andExpect(view().name("redirect:/owners/{ownerId}"));
+			.andExpect(status().isOk())
+			.andExpect(model().attributeHasFieldErrors("owner", "firstName", "lastName", "address", "telephone"))
+			.andExpect(view().name("owners/createOrUpdateOwnerForm"));
 	}
 
 	@Test
@@ -229,8 +267,7 @@ class OwnerControllerTests {
 			.andExpect(model().attribute("owner", hasProperty("city", is("Madison"))))
 			.andExpect(model().attribute("owner", hasProperty("telephone", is("6085551023"))))
 			.andExpect(model().attribute("owner", hasProperty("pets", not(empty()))))
-			.andExpect(model().attribute("owner",
-					hasProperty("pets", hasItem(hasProperty("visits", hasSize(greaterThan(0)))))))
+			.andExpect(model().attribute("recentVisits", hasEntry(is(1), hasProperty("content", hasSize(1)))))
 			.andExpect(view().name("owners/ownerDetails"));
 	}
 
@@ -246,12 +283,154 @@ class OwnerControllerTests {
 		owner.setCity("New York");
 		owner.setTelephone("0123456789");
 
-		when(owners.findById(pathOwnerId)).thenReturn(Optional.of(owner));
-
 		mockMvc.perform(MockMvcRequestBuilders.post("/owners/{ownerId}/edit", pathOwnerId).flashAttr("owner", owner))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(redirectedUrl("/owners/" + pathOwnerId + "/edit"))
 			.andExpect(flash().attributeExists("error"));
 	}
 
+	@Test
+	void testShowOwnerNotFound() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}", 99))
+			.andExpect(status().isNotFound())
+			.andExpect(content().contentTypeCompatibleWith("text/html"))
+			.andExpect(content().string(containsString("The requested page was not found.")));
+	}
+
+	@Test
+	void testInitUpdateOwnerFormNotFound() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/edit", 99)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testShowOwnerWithMalformedId() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}", "abc"))
+			.andExpect(status().isBadRequest())
+			.andExpect(content().string(containsString("The request could not be understood.")));
+	}
+
+	@Test
+	void testProcessFindFormFragment() throws Exception {
+		Page<Owner> tasks = new PageImpl<>(List.of(george(), new Owner()));
+		when(this.ownerService.findOwners(anyString(), any(Pageable.class))).thenReturn(tasks);
+		mockMvc.perform(get("/owners?page=1").header(PartialViewInterceptor.REQUEST_HEADER, "true"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("owners/ownersList :: results"))
+			.andExpect(content().string(containsString("id=\"owners-results\"")))
+			.andExpect(content().string(not(containsString("<nav"))));
+	}
+
+	@Test
+	void testProcessCreationFormHasErrorsFragment() throws Exception {
+		mockMvc
+			.perform(post("/owners/new").header(PartialViewInterceptor.REQUEST_HEADER, "true")
+				.param("firstName", "Joe")
+				.param("lastName", "Bloggs"))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeHasFieldErrors("owner", "address"))
+			.andExpect(view().name("owners/createOrUpdateOwnerForm :: form"))
+			.andExpect(content().string(containsString("<form")))
+			.andExpect(content().string(not(containsString("<nav"))));
+	}
+
+	@Test
+	void testProcessUpdateOwnerFormSuccessFragment() throws Exception {
+		mockMvc
+			.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).header(PartialViewInterceptor.REQUEST_HEADER, "true")
+				.param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "1616291589"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(PartialViewInterceptor.REDIRECT_HEADER, "/owners/" + TEST_OWNER_ID))
+			.andExpect(flash().attribute("message", "Owner Values Updated"));
+	}
+
+	@Test
+	void testHistoryRestoreRendersFullPage() throws Exception {
+		Page<Owner> tasks = new PageImpl<>(List.of(george(), new Owner()));
+		when(this.ownerService.findOwners(anyString(), any(Pageable.class))).thenReturn(tasks);
+		mockMvc
+			.perform(get("/owners?page=1").header(PartialViewInterceptor.REQUEST_HEADER, "true")
+				.header("HX-History-Restore-Request", "true"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("owners/ownersList"));
+	}
+
+	@Test
+	void testProcessUpdateOwnerFormConcurrentModification() throws Exception {
+		willThrow(new ObjectOptimisticLockingFailureException(Owner.class, TEST_OWNER_ID)).given(this.ownerService)
+			.updateOwner(eq(TEST_OWNER_ID), any(Owner.class));
+		mockMvc
+			.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "1616291589")
+				.param("version", "0"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(redirectedUrl("/owners/" + TEST_OWNER_ID + "/edit"))
+			.andExpect(flash().attributeExists("error"));
+	}
+
+	@Test
+	void testProcessUpdateOwnerFormWithoutVersionIsRejected() throws Exception {
+		// the service rejects a missing version, which the form must not fill in from the
+		// stored owner
+		willThrow(new ObjectOptimisticLockingFailureException(Owner.class, TEST_OWNER_ID)).given(this.ownerService)
+			.updateOwner(eq(TEST_OWNER_ID), argThat(owner -> owner.getVersion() == null));
+		mockMvc
+			.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "1616291589"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(redirectedUrl("/owners/" + TEST_OWNER_ID + "/edit"))
+			.andExpect(flash().attributeExists("error"));
+	}
+
+	@Test
+	void testProcessCreationFormReplayReturnsOriginalRedirect() throws Exception {
+		given(this.ownerService.createOwner(any(Owner.class))).willAnswer(invocation -> {
+			Owner owner = invocation.getArgument(0);
+			owner.setId(42);
+			return owner;
+		});
+		String token = UUID.randomUUID().toString();
+		for (int i = 0; i < 2; i++) {
+			mockMvc
+				.perform(post("/owners/new").param("firstName", "Joe")
+					.param("lastName", "Bloggs")
+					.param("address", "123 Caramel Street")
+					.param("city", "London")
+					.param("telephone", "1316761638")
+					.param("idempotencyToken", token))
+				.andExpect(status().is3xxRedirection())
+				.andExpect(redirectedUrl("/owners/42"));
+		}
+		verify(this.ownerService, times(1)).createOwner(any(Owner.class));
+	}
+
+	@Test
+	void testProcessCreationFormWithErrorsCanBeResubmitted() throws Exception {
+		String token = UUID.randomUUID().toString();
+		mockMvc
+			.perform(post("/owners/new").param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("idempotencyToken", token))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeHasErrors("owner"));
+		mockMvc
+			.perform(post("/owners/new").param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "1316761638")
+				.param("idempotencyToken", token))
+			.andExpect(status().is3xxRedirection());
+		verify(this.ownerService, times(1)).createOwner(any(Owner.class));
+	}
+
 }
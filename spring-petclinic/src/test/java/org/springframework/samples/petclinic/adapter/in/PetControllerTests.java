@@ -25,10 +25,12 @@ import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.samples.petclinic.adapter.in.PetController;
-import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
 import org.springframework.samples.petclinic.adapter.out.PetTypeRepository;
+import org.springframework.samples.petclinic.application.OwnerService;
 import org.springframework.samples.petclinic.application.PetTypeFormatter;
+import org.springframework.samples.petclinic.domain.DuplicatePetNameException;
 import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.samples.petclinic.domain.OwnerNotFoundException;
 import org.springframework.samples.petclinic.domain.Pet;
 import org.springframework.samples.petclinic.domain.PetType;
 import org.springframework.test.context.aot.DisabledInAotMode;
@@ -37,9 +39,13 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.BDDMockito.willThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -66,10 +72,10 @@ class PetControllerTests {
 	private MockMvc mockMvc;
 
 	@MockitoBean
-	private OwnerRepository owners;
+	private PetTypeRepository types;
 
 	@MockitoBean
-	private PetTypeRepository types;
+	private OwnerService ownerService;
 
 	@BeforeEach
 	void setup() {
@@ -87,7 +93,10 @@ class PetControllerTests {
 		dog.setId(TEST_PET_ID + 1);
 		pet.setName("petty");
 		dog.setName("doggy");
-		given(this.owners.findById(TEST_OWNER_ID)).willReturn(Optional.of(owner));
+		given(this.ownerService.findOwner(anyInt())).willAnswer(invocation -> {
+			throw new OwnerNotFoundException(invocation.getArgument(0));
+		});
+		willReturn(owner).given(this.ownerService).findOwner(TEST_OWNER_ID);
 	}
 
 	@Test
@@ -108,6 +117,19 @@ class PetControllerTests {
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
 	}
 
+	@Test
+	void testProcessCreationFormWithNameTakenConcurrently() throws Exception {
+		willThrow(new DuplicatePetNameException(TEST_OWNER_ID, "Betty")).given(this.ownerService)
+			.addPet(eq(TEST_OWNER_ID), any(Pet.class));
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/new", TEST_OWNER_ID).param("name", "Betty")
+				.param("type", "hamster")
+				.param("birthDate", "2015-02-12"))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeHasFieldErrorCode("pet", "name", "duplicate"))
+			.andExpect(view().name("pets/createOrUpdatePetForm"));
+	}
+
 	@Nested
 	class ProcessCreationFormHasErrors {
 
@@ -174,6 +196,12 @@ class PetControllerTests {
 				.andExpect(view().name("pets/createOrUpdatePetForm"));
 		}
 
+		@Test
+		void testInitUpdateFormForUnknownPet() throws Exception {
+			mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/edit", TEST_OWNER_ID, 99))
+				.andExpect(status().isNotFound());
+		}
+
 	}
 
 	@Test
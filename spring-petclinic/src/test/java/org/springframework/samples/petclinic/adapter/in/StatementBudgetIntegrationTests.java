@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.in;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Integration test counting the SQL statements every endpoint runs, with the
+ * {@link StatementBudgetInterceptor}, so that a change adding statements to a page, such
+ * as an association loaded once per row, fails here rather than in production. Only
+ * {@link CrashController} is left out, it fails before reading anything.
+ * <p>
+ * The requests write to the database, and rolling them back would hide the statements
+ * flushed on commit, so the context is discarded afterwards instead.
+ * </p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class StatementBudgetIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Test
+	void testWelcomeController() throws Exception {
+		assertThat(statements(get("/"))).isZero();
+	}
+
+	@Test
+	void testOwnerController() throws Exception {
+		assertThat(statements(get("/owners/new"))).isZero();
+		assertThat(statements(get("/owners/find"))).isZero();
+		assertThat(statements(get("/owners").param("lastName", "Davis"))).isLessThanOrEqualTo(3);
+		assertThat(statements(get("/owners").param("lastName", ""))).isLessThanOrEqualTo(7);
+		assertThat(statements(get("/owners/{ownerId}", 6))).isLessThanOrEqualTo(2);
+		assertThat(statements(get("/owners/{ownerId}/edit", 6))).isLessThanOrEqualTo(1);
+		assertThat(statements(post("/owners/{ownerId}/edit", 6).param("firstName", "Jean")
+			.param("lastName", "Coleman")
+			.param("address", "105 N. Lake St.")
+			.param("city", "Monona")
+			.param("telephone", "6085552654")
+			.param("version", String.valueOf(this.owners.findById(6).get().getVersion())))).isLessThanOrEqualTo(3);
+		assertThat(statements(post("/owners/new").param("firstName", "Bud")
+			.param("lastName", "Budget")
+			.param("address", "1 Main St.")
+			.param("city", "Madison")
+			.param("telephone", "6085550001"))).isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void testPetController() throws Exception {
+		assertThat(statements(get("/owners/{ownerId}/pets/new", 6))).isLessThanOrEqualTo(2);
+		assertThat(statements(get("/owners/{ownerId}/pets/{petId}/edit", 6, 7))).isLessThanOrEqualTo(1);
+		assertThat(statements(post("/owners/{ownerId}/pets/{petId}/edit", 6, 7).param("name", "Samantha")
+			.param("type", "cat")
+			.param("birthDate", "2012-09-04")
+			.param("version", String.valueOf(this.owners.findById(6).get().getPet(7).getVersion()))))
+			.isLessThanOrEqualTo(3);
+		assertThat(statements(post("/owners/{ownerId}/pets/new", 6).param("name", "Budgie")
+			.param("type", "bird")
+			.param("birthDate", "2020-02-12"))).isLessThanOrEqualTo(6);
+	}
+
+	@Test
+	void testVisitController() throws Exception {
+		assertThat(statements(get("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7))).isLessThanOrEqualTo(2);
+		assertThat(statements(get("/owners/{ownerId}/pets/{petId}/visits", 6, 7))).isLessThanOrEqualTo(2);
+		assertThat(statements(get("/owners/{ownerId}/pets/{petId}/visits/archived", 6, 7))).isLessThanOrEqualTo(2);
+		assertThat(statements(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7).param("date", "2020-02-12")
+			.param("description", "checkup"))).isLessThanOrEqualTo(4);
+	}
+
+	@Test
+	void testVetController() throws Exception {
+		assertThat(statements(get("/vets.html"))).isLessThanOrEqualTo(7);
+		assertThat(statements(get("/vets").accept(MediaType.APPLICATION_JSON))).isLessThanOrEqualTo(7);
+	}
+
+	@Test
+	void testStatisticsController() throws Exception {
+		assertThat(statements(get("/statistics.html"))).isLessThanOrEqualTo(3);
+		assertThat(statements(get("/statistics"))).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	void testChangeFeedController() throws Exception {
+		assertThat(statements(get("/changes").accept(MediaType.APPLICATION_NDJSON))).isLessThanOrEqualTo(1);
+	}
+
+	private int statements(MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult result = this.mockMvc.perform(request).andReturn();
+		assertThat(result.getResponse().getStatus()).isLessThan(400);
+		return (Integer) result.getRequest().getAttribute(StatementBudgetInterceptor.STATEMENTS_ATTRIBUTE);
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.in;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.adapter.out.StatisticsCounters;
+import org.springframework.samples.petclinic.domain.ClinicStatistics;
+import org.springframework.samples.petclinic.domain.ClinicStatistics.Count;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link StatisticsController}
+ */
+@WebMvcTest(StatisticsController.class)
+@DisabledInNativeImage
+@DisabledInAotMode
+class StatisticsControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private StatisticsCounters statistics;
+
+	@BeforeEach
+	void setup() {
+		given(this.statistics.read()).willReturn(new ClinicStatistics(List.of(new Count("cat", 4)),
+				List.of(new Count("2013-01", 4)), List.of(new Count("2026-10-12", 2))));
+	}
+
+	@Test
+	void testShowStatisticsHtml() throws Exception {
+		mockMvc.perform(get("/statistics.html"))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeExists("statistics"))
+			.andExpect(view().name("statistics/clinicStatistics"))
+			.andExpect(content().string(containsString("2026-10-12")));
+	}
+
+	@Test
+	void testShowStatisticsJson() throws Exception {
+		mockMvc.perform(get("/statistics").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+			.andExpect(jsonPath("$.petsPerType[0].label").value("cat"))
+			.andExpect(jsonPath("$.visitsPerMonth[0].total").value(4));
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.in;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link SubmissionTokens}
+ */
+class SubmissionTokensTests {
+
+	private final MutableClock clock = new MutableClock();
+
+	private final SubmissionTokens tokens = new SubmissionTokens(3, Duration.ofMinutes(10), clock);
+
+	@Test
+	void testRepeatedTokenGetsTheFirstRedirect() {
+		assertThat(tokens.begin("a")).isNull();
+		CompletableFuture<String> replay = tokens.begin("a");
+		assertThat(replay).isNotDone();
+
+		tokens.complete("a", "/owners/1");
+		assertThat(replay).isCompletedWithValue("/owners/1");
+		assertThat(tokens.begin("a")).isCompletedWithValue("/owners/1");
+	}
+
+	@Test
+	void testReleasedTokenCanBeSubmittedAgain() {
+		tokens.begin("a");
+		CompletableFuture<String> waiting = tokens.begin("a");
+		tokens.release("a");
+
+		assertThat(waiting).isCompletedWithValue(null);
+		assertThat(tokens.begin("a")).isNull();
+	}
+
+	@Test
+	void testReleasedTokensDoNotCountTowardsTheLimit() {
+		tokens.begin("a");
+		tokens.begin("b");
+		tokens.release("b");
+		tokens.begin("c");
+		tokens.begin("d");
+
+		assertThat(tokens.size()).isEqualTo(3);
+	}
+
+	@Test
+	void testTokensExpire() {
+		tokens.begin("a");
+		tokens.complete("a", "/owners/1");
+		clock.advance(Duration.ofMinutes(10));
+
+		assertThat(tokens.begin("b")).isNull();
+		assertThat(tokens.size()).isOne();
+		assertThat(tokens.begin("a")).isNull();
+	}
+
+	@Test
+	void testOldestTokensAreDroppedWhenFull() {
+		for (String token : new String[] { "a", "b", "c", "d", "e" }) {
+			tokens.begin(token);
+		}
+		assertThat(tokens.size()).isEqualTo(3);
+		assertThat(tokens.begin("a")).isNull();
+		assertThat(tokens.begin("e")).isNotNull();
+	}
+
+	private static class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2026-03-14T09:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+	}
+
+}
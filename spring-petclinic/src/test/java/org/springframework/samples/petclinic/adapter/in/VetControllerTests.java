@@ -24,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.adapter.in.VetController;
 import org.springframework.samples.petclinic.adapter.out.VetRepository;
@@ -32,9 +33,14 @@ import org.springframework.samples.petclinic.domain.Vet;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -101,4 +107,19 @@ class VetControllerTests {
 			.andExpect(jsonPath("$.vetList[0].id").value(1));
 	}
 
+	@Test
+	void testShowVetListFragment() throws Exception {
+		byte[] fullPage = mockMvc.perform(get("/vets.html?page=1")).andReturn().getResponse().getContentAsByteArray();
+
+		MvcResult result = mockMvc
+			.perform(get("/vets.html?page=1").header(PartialViewInterceptor.REQUEST_HEADER, "true"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("vets/vetList :: results"))
+			.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(PartialViewInterceptor.REQUEST_HEADER)))
+			.andExpect(content().string(containsString("Helen Leary")))
+			.andExpect(content().string(not(containsString("<nav"))))
+			.andReturn();
+		assertThat(result.getResponse().getContentAsByteArray().length).isLessThan(fullPage.length / 2);
+	}
+
 }
@@ -16,28 +16,46 @@
 
 package org.springframework.samples.petclinic.adapter.in;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.samples.petclinic.adapter.in.VisitController;
-import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.application.VisitService;
 import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.samples.petclinic.domain.OwnerNotFoundException;
 import org.springframework.samples.petclinic.domain.Pet;
+import org.springframework.samples.petclinic.domain.PetNotFoundException;
+import org.springframework.samples.petclinic.domain.Visit;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.Optional;
-
 /**
  * Test class for {@link VisitController}
  *
@@ -57,7 +75,10 @@ class VisitControllerTests {
 	private MockMvc mockMvc;
 
 	@MockitoBean
-	private OwnerRepository owners;
+	private OwnerService owners;
+
+	@MockitoBean
+	private VisitService visits;
 
 	@BeforeEach
 	void init() {
@@ -65,7 +86,10 @@ class VisitControllerTests {
 		Pet pet = new Pet();
 		owner.addPet(pet);
 		pet.setId(TEST_PET_ID);
-		given(this.owners.findById(TEST_OWNER_ID)).willReturn(Optional.of(owner));
+		given(this.owners.findOwner(anyInt())).willAnswer(invocation -> {
+			throw new OwnerNotFoundException(invocation.getArgument(0));
+		});
+		willReturn(owner).given(this.owners).findOwner(TEST_OWNER_ID);
 	}
 
 	@Test
@@ -83,6 +107,19 @@ class VisitControllerTests {
 				.param("description", "Visit Description"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+
+		then(this.visits).should().bookVisit(eq(TEST_OWNER_ID), eq(TEST_PET_ID), any(Visit.class));
+		then(this.owners).shouldHaveNoInteractions();
+	}
+
+	@Test
+	void testProcessNewVisitFormForPetOfAnotherOwner() throws Exception {
+		willThrow(new PetNotFoundException(TEST_OWNER_ID, 99)).given(this.visits)
+			.bookVisit(eq(TEST_OWNER_ID), eq(99), any(Visit.class));
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, 99).param("description",
+					"Visit Description"))
+			.andExpect(status().isNotFound());
 	}
 
 	@Test
@@ -95,4 +132,101 @@ class VisitControllerTests {
 			.andExpect(view().name("pets/createOrUpdateVisitForm"));
 	}
 
+	@Test
+	void testProcessNewVisitFormWithoutDateHasErrors() throws Exception {
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID).param("date", "")
+				.param("description", "Visit Description"))
+			.andExpect(model().attributeHasFieldErrors("visit", "date"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("pets/createOrUpdateVisitForm"));
+	}
+
+	@Test
+	void testInitNewVisitFormForUnknownPet() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, 99))
+			.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testInitNewVisitFormForUnknownOwner() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", 99, TEST_PET_ID))
+			.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testInitNewVisitFormShowsRecentVisits() throws Exception {
+		given(this.visits.findRecentVisits(TEST_OWNER_ID, TEST_PET_ID))
+			.willReturn(new SliceImpl<>(List.of(new Visit())));
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("visits", hasProperty("content", hasSize(1))));
+	}
+
+	@Test
+	void testShowVisits() throws Exception {
+		given(this.visits.findRecentVisits(TEST_OWNER_ID, TEST_PET_ID))
+			.willReturn(new SliceImpl<>(List.of(new Visit())));
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeExists("owner", "pet"))
+			.andExpect(view().name("pets/visitHistory"));
+	}
+
+	@Test
+	void testShowVisitsBeforePartial() throws Exception {
+		Visit visit = new Visit();
+		visit.setId(3);
+		visit.setDate(LocalDate.of(2020, 1, 1));
+		given(this.visits.findVisitsBefore(TEST_OWNER_ID, TEST_PET_ID, LocalDate.of(2020, 1, 2), 7))
+			.willReturn(new SliceImpl<>(List.of(visit), PageRequest.ofSize(1), true));
+		mockMvc
+			.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID)
+				.param("beforeDate", "2020-01-02")
+				.param("beforeId", "7")
+				.header(PartialViewInterceptor.REQUEST_HEADER, "true"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("pets/visitHistory :: rows"))
+			.andExpect(content().string(containsString("beforeDate=2020-01-01&amp;beforeId=3")));
+		then(this.owners).shouldHaveNoInteractions();
+	}
+
+	@Test
+	void testShowVisitsBeforeUndatedVisitPartial() throws Exception {
+		Visit visit = new Visit();
+		visit.setId(3);
+		visit.setDate(null);
+		given(this.visits.findVisitsBefore(TEST_OWNER_ID, TEST_PET_ID, null, 7))
+			.willReturn(new SliceImpl<>(List.of(visit), PageRequest.ofSize(1), true));
+		mockMvc
+			.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID).param("beforeDate", "")
+				.param("beforeId", "7")
+				.header(PartialViewInterceptor.REQUEST_HEADER, "true"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("beforeId=3")));
+		then(this.visits).should(never()).findRecentVisits(TEST_OWNER_ID, TEST_PET_ID);
+	}
+
+	@Test
+	void testShowArchivedVisits() throws Exception {
+		given(this.visits.findArchivedVisits(TEST_OWNER_ID, TEST_PET_ID)).willReturn(List.of(new Visit()));
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/archived", TEST_OWNER_ID, TEST_PET_ID))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeExists("owner", "pet"))
+			.andExpect(model().attribute("visits", hasSize(1)))
+			.andExpect(view().name("pets/archivedVisits"));
+	}
+
+	@Test
+	void testShowArchivedVisitsPartial() throws Exception {
+		given(this.visits.findArchivedVisits(TEST_OWNER_ID, TEST_PET_ID)).willReturn(List.of());
+		mockMvc
+			.perform(get("/owners/{ownerId}/pets/{petId}/visits/archived", TEST_OWNER_ID, TEST_PET_ID)
+				.header(PartialViewInterceptor.REQUEST_HEADER, "true"))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeDoesNotExist("owner"))
+			.andExpect(view().name("pets/archivedVisits :: rows"));
+		then(this.owners).shouldHaveNoInteractions();
+	}
+
 }
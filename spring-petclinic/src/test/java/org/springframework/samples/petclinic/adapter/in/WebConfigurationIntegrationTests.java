@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.in;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.apache.catalina.Container;
+import org.apache.catalina.Context;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.restclient.RestTemplateBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Load test for the locale handling configured in {@link WebConfiguration}: switching
+ * language must not create an HTTP session, however many visitors there are.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class WebConfigurationIntegrationTests {
+
+	private static final List<String> LANGUAGES = List.of("de", "es", "ko", "en");
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	private RestTemplateBuilder builder;
+
+	@Autowired
+	private WebServerApplicationContext context;
+
+	@Test
+	void testLocaleSwitchKeepsSessionCountFlat() {
+		RestTemplate template = builder.rootUri("http://localhost:" + port).build();
+		for (int visitors : new int[] { 10, 100, 300 }) {
+			for (int i = 0; i < visitors; i++) {
+				String lang = LANGUAGES.get(i % LANGUAGES.size());
+				ResponseEntity<String> switched = template.exchange(RequestEntity.get("/?lang=" + lang).build(),
+						String.class);
+				List<String> cookies = switched.getHeaders().getOrEmpty(HttpHeaders.SET_COOKIE);
+				assertThat(cookies).noneMatch(cookie -> cookie.startsWith("JSESSIONID"));
+				assertThat(cookies).anyMatch(cookie -> cookie.startsWith(WebConfiguration.LOCALE_COOKIE_NAME + "="));
+			}
+			assertThat(activeSessions()).as("active sessions after %d visitors", visitors).isZero();
+		}
+	}
+
+	@Test
+	void testLocaleIsRememberedThroughCookie() {
+		RestTemplate template = builder.rootUri("http://localhost:" + port).build();
+		ResponseEntity<String> switched = template.exchange(RequestEntity.get("/?lang=de").build(), String.class);
+		String cookie = switched.getHeaders().getFirst(HttpHeaders.SET_COOKIE).split(";")[0];
+
+		ResponseEntity<String> next = template
+			.exchange(RequestEntity.get("/vets.html").header(HttpHeaders.COOKIE, cookie).build(), String.class);
+		assertThat(next.getBody()).contains("Tierärzte");
+	}
+
+	@Test
+	void testLocaleFallsBackToAcceptLanguage() {
+		RestTemplate template = builder.rootUri("http://localhost:" + port).build();
+		ResponseEntity<String> result = template
+			.exchange(RequestEntity.get("/vets.html").header(HttpHeaders.ACCEPT_LANGUAGE, "es").build(), String.class);
+		assertThat(result.getBody()).contains("Veterinarios");
+		assertThat(result.getHeaders().getOrEmpty(HttpHeaders.SET_COOKIE)).isEmpty();
+	}
+
+	private int activeSessions() {
+		TomcatWebServer server = (TomcatWebServer) this.context.getWebServer();
+		int sessions = 0;
+		for (Container child : server.getTomcat().getHost().findChildren()) {
+			sessions += ((Context) child).getManager().getActiveSessions();
+		}
+		return sessions;
+	}
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.out;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Tests for {@link ReadReplicas} and {@link ReplicaRoutingDataSource}, with H2 databases
+ * standing in for the primary and its replicas.
+ */
+class ReadReplicasTests {
+
+	private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+	private static final Duration CHECK_INTERVAL = Duration.ofSeconds(10);
+
+	private final MutableClock clock = new MutableClock();
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	private final DataSource primary = migratedDatabase();
+
+	private final DataSource replica = migratedDatabase();
+
+	@Test
+	void testReplicaIsUsedOnceChecked() {
+		ReadReplicas replicas = replicas(Map.of("replica-1", this.replica));
+		assertThat(replicas.select()).isNull();
+
+		replicas.check();
+		assertThat(replicas.select()).isSameAs(this.replica);
+		assertThat(replicas.getLag()).containsEntry("replica-1", Duration.ZERO);
+	}
+
+	@Test
+	void testLaggingReplicaIsSkipped() {
+		ReadReplicas replicas = replicas(Map.of("replica-1", this.replica));
+		recordChange(this.primary);
+		replicas.check();
+		assertThat(replicas.select()).isSameAs(this.replica);
+
+		this.clock.advance(Duration.ofSeconds(6));
+		assertThat(replicas.select()).isNull();
+		assertThat(replicas.getLag()).containsEntry("replica-1", Duration.ofSeconds(6));
+		assertThat(this.registry.get("petclinic.datasource.replica.lag").gauge().value()).isEqualTo(6.0);
+
+		recordChange(this.replica);
+		replicas.check();
+		assertThat(replicas.select()).isSameAs(this.replica);
+	}
+
+	@Test
+	void testReplicaIsSkippedWithoutRecentCheck() {
+		ReadReplicas replicas = replicas(Map.of("replica-1", this.replica));
+		replicas.check();
+
+		this.clock.advance(CHECK_INTERVAL.multipliedBy(3).plusSeconds(1));
+		assertThat(replicas.select()).isNull();
+	}
+
+	@Test
+	void testUnavailableReplicaIsSkipped() {
+		DataSource missing = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";IFEXISTS=TRUE");
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", missing);
+		replicas.put("replica-2", this.replica);
+		ReadReplicas readReplicas = replicas(replicas);
+		readReplicas.check();
+
+		for (int i = 0; i < 4; i++) {
+			assertThat(readReplicas.select()).isSameAs(this.replica);
+		}
+		assertThat(readReplicas.getLag()).containsEntry("replica-1", null);
+		assertThat(this.registry.get("petclinic.datasource.replica.lag").tag("replica", "replica-1").gauge().value())
+			.isNaN();
+	}
+
+	@Test
+	void testCurrentReplicasTakeTurns() {
+		DataSource other = migratedDatabase();
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", this.replica);
+		replicas.put("replica-2", other);
+		ReadReplicas readReplicas = replicas(replicas);
+		readReplicas.check();
+
+		assertThat(readReplicas.select()).isSameAs(this.replica);
+		assertThat(readReplicas.select()).isSameAs(other);
+		assertThat(readReplicas.select()).isSameAs(this.replica);
+	}
+
+	@Test
+	void testClientThatWroteReadsFromPrimary() {
+		ReadReplicas replicas = replicas(Map.of("replica-1", this.replica));
+		replicas.check();
+		ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(this.primary, replicas);
+		new JdbcTemplate(this.primary).update("UPDATE owners SET last_name = 'Primary' WHERE id = 1");
+
+		assertThat(lastNameOfFirstOwner(dataSource)).isEqualTo("Franklin");
+		ReadYourWrites.requirePrimary();
+		try {
+			assertThat(lastNameOfFirstOwner(dataSource)).isEqualTo("Primary");
+		}
+		finally {
+			ReadYourWrites.reset();
+		}
+		assertThat(lastNameOfFirstOwner(dataSource)).isEqualTo("Franklin");
+	}
+
+	private ReadReplicas replicas(Map<String, DataSource> replicas) {
+		return new ReadReplicas(this.primary, replicas, MAX_LAG, CHECK_INTERVAL, this.registry, this.clock);
+	}
+
+	private static String lastNameOfFirstOwner(DataSource dataSource) {
+		return new JdbcTemplate(dataSource).queryForObject("SELECT last_name FROM owners WHERE id = 1", String.class);
+	}
+
+	private static void recordChange(DataSource dataSource) {
+		new JdbcTemplate(dataSource).update("INSERT INTO change_events (id, aggregate, aggregate_id, type, payload,"
+				+ " created_at) VALUES (1, 'owner', 1, 'updated', '{}', CURRENT_TIMESTAMP)");
+	}
+
+	private static DataSource migratedDatabase() {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		Flyway.configure().dataSource(dataSource).locations("classpath:db/h2/migration").load().migrate();
+		return dataSource;
+	}
+
+	private static class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2026-03-14T09:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.out;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Tests for the versioned schema migrations under <code>db/h2/migration</code> and
+ * <code>db/migration</code>, configured like <code>spring.flyway.*</code> in
+ * <code>application.properties</code>.
+ */
+class SchemaMigrationTests {
+
+	private static final String LOCATION = "db/h2/migration";
+
+	private final DataSource dataSource = new DriverManagerDataSource(
+			"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+
+	@Test
+	void testMigrationsRunOnce() {
+		assertThat(flyway().migrate().migrationsExecuted).isEqualTo(11);
+		assertThat(flyway().migrate().migrationsExecuted).isZero();
+		assertThat(flyway().validateWithResult().validationSuccessful).isTrue();
+	}
+
+	@Test
+	void testDatabaseOfFormerInitScriptsIsAdopted() {
+		// what the former schema.sql and data.sql left behind, without version columns
+		new ResourceDatabasePopulator(new ClassPathResource(LOCATION + "/V1__create_schema.sql"),
+				new ClassPathResource(LOCATION + "/V2__insert_sample_data.sql"))
+			.execute(this.dataSource);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+		jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, NULL, 'undated')");
+
+		assertThat(flyway().migrate().migrationsExecuted).isEqualTo(9);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT version FROM owners WHERE id = 1", Integer.class)).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_events", Integer.class)).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM owners", Integer.class)).isEqualTo(10);
+		assertThat(jdbcTemplate.queryForObject("SELECT last_name_key FROM owners WHERE id = 1", String.class))
+			.isEqualTo("franklin");
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM visits WHERE description = 'undated' AND visit_date IS NULL", Integer.class))
+			.isOne();
+	}
+
+	private Flyway flyway() {
+		return Flyway.configure()
+			.dataSource(this.dataSource)
+			.locations("classpath:" + LOCATION, "classpath:db/migration")
+			.baselineOnMigrate(true)
+			.baselineVersion("2")
+			.load();
+	}
+
+}
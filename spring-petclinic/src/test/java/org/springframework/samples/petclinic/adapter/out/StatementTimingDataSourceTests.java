@@ -0,0 +1,153 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.out;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbc.JdbcConnection;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Tests for {@link StatementTimingDataSource}.
+ */
+class StatementTimingDataSourceTests {
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	private final StatementTimingDataSource dataSource = new StatementTimingDataSource(
+			new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"), () -> registry);
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+	@Test
+	void testExecutionsAreTimedPerStatement() {
+		this.jdbcTemplate.execute("CREATE TABLE pets (id INT PRIMARY KEY, name VARCHAR(30))");
+		this.jdbcTemplate.batchUpdate("INSERT INTO pets VALUES (?, ?)",
+				List.of(new Object[] { 1, "Leo" }, new Object[] { 2, "Basil" }));
+		for (int i = 0; i < 3; i++) {
+			this.jdbcTemplate.queryForObject("SELECT name FROM pets WHERE id = ?", String.class, 1);
+		}
+
+		assertThat(timer("SELECT name FROM pets WHERE id = ?", "success").count()).isEqualTo(3);
+		assertThat(timer("INSERT INTO pets VALUES (?)", "success").count()).isEqualTo(1);
+		assertThat(timer("CREATE TABLE pets (id INT PRIMARY KEY, name VARCHAR(30))", "success").count()).isEqualTo(1);
+	}
+
+	@Test
+	void testParameterListsShareOneStatement() {
+		this.jdbcTemplate.execute("CREATE TABLE pets (id INT PRIMARY KEY)");
+		this.jdbcTemplate.queryForList("SELECT id FROM pets WHERE id IN (?, ?)", Integer.class, 1, 2);
+		this.jdbcTemplate.queryForList("SELECT id FROM pets\n\tWHERE id IN (?,?,?)", Integer.class, 1, 2, 3);
+
+		assertThat(timer("SELECT id FROM pets WHERE id IN (?)", "success").count()).isEqualTo(2);
+	}
+
+	@Test
+	void testExecutionsAreTalliedPerThread() {
+		this.jdbcTemplate.execute("CREATE TABLE pets (id INT PRIMARY KEY, name VARCHAR(30))");
+		StatementTally tally = StatementTally.start(-1);
+		try {
+			for (int i = 0; i < 3; i++) {
+				this.jdbcTemplate.queryForList("SELECT name FROM pets WHERE id = ?", String.class, i);
+			}
+			this.jdbcTemplate.queryForList("SELECT name FROM pets", String.class);
+		}
+		finally {
+			tally.stop();
+		}
+		this.jdbcTemplate.queryForList("SELECT name FROM pets", String.class);
+
+		assertThat(tally.getStatements()).isEqualTo(4);
+		assertThat(tally.getRepeatedStatements(3)).containsExactly(entry("SELECT name FROM pets WHERE id = ?", 3));
+	}
+
+	@Test
+	void testStatementsBeyondTallyLimitAreRejected() {
+		this.jdbcTemplate.execute("CREATE TABLE pets (id INT PRIMARY KEY)");
+		StatementTally tally = StatementTally.start(1);
+		try {
+			this.jdbcTemplate.queryForList("SELECT id FROM pets", Integer.class);
+			assertThatExceptionOfType(StatementBudgetExceededException.class)
+				.isThrownBy(() -> this.jdbcTemplate.queryForList("SELECT id FROM pets", Integer.class));
+		}
+		finally {
+			tally.stop();
+		}
+
+		assertThat(tally.getStatements()).isEqualTo(1);
+		assertThat(timer("SELECT id FROM pets", "success").count()).isEqualTo(1);
+	}
+
+	@Test
+	void testFailedExecutionsAreTimedAsErrors() {
+		assertThatExceptionOfType(BadSqlGrammarException.class)
+			.isThrownBy(() -> this.jdbcTemplate.queryForList("SELECT * FROM missing"));
+
+		assertThat(timer("SELECT * FROM missing", "error").count()).isEqualTo(1);
+	}
+
+	@Test
+	void testStatementsBeyondLimitAreCountedAsOther() {
+		for (int i = 0; i <= StatementTimingDataSource.MAX_STATEMENTS; i++) {
+			this.jdbcTemplate.queryForObject("SELECT " + i, Integer.class);
+		}
+
+		assertThat(timer("other", "success").count()).isEqualTo(1);
+		assertThat(this.registry.find("petclinic.jdbc.statements").timers())
+			.hasSize(StatementTimingDataSource.MAX_STATEMENTS + 1);
+
+		StatementTally tally = StatementTally.start(-1);
+		try {
+			this.jdbcTemplate.queryForObject("SELECT 1000", Integer.class);
+			this.jdbcTemplate.queryForObject("SELECT 1001", Integer.class);
+		}
+		finally {
+			tally.stop();
+		}
+		assertThat(tally.getRepeatedStatements(1)).containsOnlyKeys("SELECT 1000", "SELECT 1001");
+	}
+
+	@Test
+	void testConnectionsUnwrapToDriverConnection() throws SQLException {
+		try (Connection connection = this.dataSource.getConnection()) {
+			assertThat(connection.isWrapperFor(JdbcConnection.class)).isTrue();
+			assertThat(connection.unwrap(JdbcConnection.class)).isInstanceOf(JdbcConnection.class);
+			assertThat(connection.createStatement().getConnection()).isSameAs(connection);
+		}
+	}
+
+	private Timer timer(String statement, String outcome) {
+		return this.registry.get("petclinic.jdbc.statements")
+			.tag("statement", statement)
+			.tag("outcome", outcome)
+			.timer();
+	}
+
+}
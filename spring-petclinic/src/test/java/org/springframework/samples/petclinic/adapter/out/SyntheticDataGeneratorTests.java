@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.out;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.samples.petclinic.adapter.out.SyntheticDataGenerator.Result;
+import org.springframework.samples.petclinic.adapter.out.SyntheticDataGenerator.Settings;
+
+/**
+ * Tests for {@link SyntheticDataGenerator}, on migrated H2 databases.
+ */
+class SyntheticDataGeneratorTests {
+
+	private static final Settings SETTINGS = new Settings(7, 300, 1.8, 3.0, 64);
+
+	@Test
+	void testSameSeedGivesSameData() {
+		DataSource first = migratedDatabase();
+		DataSource second = migratedDatabase();
+		Result result = generator(first, SETTINGS).generate();
+		generator(second, SETTINGS).generate();
+
+		assertThat(result.owners()).isEqualTo(300);
+		assertThat(result.pets()).isBetween(400, 700);
+		assertThat(result.visits()).isBetween(result.pets() * 2, result.pets() * 4);
+		assertThat(rows(first, "owners")).hasSize(310).isEqualTo(rows(second, "owners"));
+		assertThat(rows(first, "pets")).hasSize(13 + result.pets()).isEqualTo(rows(second, "pets"));
+		assertThat(rows(first, "visits")).hasSize(4 + result.visits()).isEqualTo(rows(second, "visits"));
+
+		DataSource other = migratedDatabase();
+		generator(other, new Settings(8, 300, 1.8, 3.0, 64)).generate();
+		assertThat(rows(other, "owners")).isNotEqualTo(rows(first, "owners"));
+	}
+
+	@Test
+	void testGeneratedRowsAreConsistent() {
+		DataSource dataSource = migratedDatabase();
+		generator(dataSource, SETTINGS).generate();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM visits v JOIN pets p ON p.id = v.pet_id WHERE v.visit_date <= p.birth_date",
+				Integer.class))
+			.isZero();
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM (SELECT owner_id, LOWER(name) FROM pets GROUP BY owner_id, LOWER(name) HAVING COUNT(*) > 1)",
+				Integer.class))
+			.isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT last_name) FROM owners", Integer.class))
+			.isGreaterThan(50);
+	}
+
+	@Test
+	void testNewRowsContinueAfterGeneratedIds() {
+		DataSource dataSource = migratedDatabase();
+		generator(dataSource, SETTINGS).generate();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+		jdbcTemplate.update("INSERT INTO owners (first_name, last_name, address, city, telephone, version)"
+				+ " VALUES ('New', 'Owner', '1 Main St.', 'Madison', '6085551234', 0)");
+		assertThat(jdbcTemplate.queryForObject("SELECT id FROM owners WHERE last_name = 'Owner'", Integer.class))
+			.isEqualTo(311);
+	}
+
+	@Test
+	void testLoadedDatabaseIsSkipped() {
+		DataSource dataSource = migratedDatabase();
+		generator(dataSource, SETTINGS).generate();
+
+		Result again = generator(dataSource, SETTINGS).generate();
+		assertThat(again.rows()).isZero();
+		assertThat(rows(dataSource, "owners")).hasSize(310);
+	}
+
+	private static SyntheticDataGenerator generator(DataSource dataSource, Settings settings) {
+		return new SyntheticDataGenerator(dataSource, new DataSourceTransactionManager(dataSource), settings);
+	}
+
+	private static List<Map<String, Object>> rows(DataSource dataSource, String table) {
+		return new JdbcTemplate(dataSource).queryForList("SELECT * FROM " + table + " ORDER BY id");
+	}
+
+	private static DataSource migratedDatabase() {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		Flyway.configure().dataSource(dataSource).locations("classpath:db/h2/migration").load().migrate();
+		return dataSource;
+	}
+
+}
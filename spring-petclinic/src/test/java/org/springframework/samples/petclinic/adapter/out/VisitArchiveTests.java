@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.out;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.samples.petclinic.domain.Visit;
+
+/**
+ * Tests for {@link VisitArchive} and {@link VisitArchiver}, on a migrated H2 database
+ * whose sample visits are all dated January 2013.
+ */
+class VisitArchiveTests {
+
+	private final DataSource dataSource = migratedDatabase();
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+
+	private final VisitArchive archive = new VisitArchive(this.dataSource);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void testOldVisitsAreMoved() {
+		this.jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, '2014-06-01', 'x')");
+
+		assertThat(this.archive.archive(LocalDate.of(2014, 1, 1), 10)).isEqualTo(4);
+
+		assertThat(count("visits")).isOne();
+		assertThat(count("visits_archive")).isEqualTo(4);
+		assertThat(this.archive.archive(LocalDate.of(2014, 1, 1), 10)).isZero();
+	}
+
+	@Test
+	void testArchivedVisitsAreReadForTheirOwnerOnly() {
+		this.archive.archive(LocalDate.of(2014, 1, 1), 10);
+
+		assertThat(this.archive.findByPet(6, 7)).extracting(Visit::getDescription)
+			.containsExactly("rabies shot", "spayed");
+		assertThat(this.archive.findByPet(6, 7).get(0).getDate()).isEqualTo(LocalDate.of(2013, 1, 1));
+		assertThat(this.archive.findByPet(1, 7)).isEmpty();
+	}
+
+	@Test
+	void testArchiverMovesAllVisitsOfTheArchiveAgeInBatches() {
+		Clock clock = Clock.fixed(Instant.parse("2015-01-03T12:00:00Z"), ZoneOffset.UTC);
+		VisitArchiver archiver = new VisitArchiver(this.archive, Period.ofYears(2), Duration.ofHours(1), 3,
+				this.registry, clock);
+
+		assertThat(archiver.archive()).isEqualTo(2);
+		assertThat(count("visits")).isEqualTo(2);
+		assertThat(this.registry.get("petclinic.visits.archived").counter().count()).isEqualTo(2);
+
+		VisitArchiver later = new VisitArchiver(this.archive, Period.ofYears(2), Duration.ofHours(1), 1, this.registry,
+				Clock.offset(clock, Duration.ofDays(10)));
+		assertThat(later.archive()).isEqualTo(2);
+		assertThat(count("visits")).isZero();
+		assertThat(this.registry.get("petclinic.visits.archived").counter().count()).isEqualTo(4);
+	}
+
+	private int count(String table) {
+		return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+
+	private static DataSource migratedDatabase() {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		Flyway.configure().dataSource(dataSource).locations("classpath:db/h2/migration").load().migrate();
+		return dataSource;
+	}
+
+}
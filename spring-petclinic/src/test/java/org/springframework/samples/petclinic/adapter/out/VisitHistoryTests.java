@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.out;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.samples.petclinic.domain.Visit;
+
+/**
+ * Tests for {@link VisitHistory}, on a migrated H2 database whose pets 7 and 8 of owner 6
+ * have two sample visits each.
+ */
+class VisitHistoryTests {
+
+	private final DataSource dataSource = migratedDatabase();
+
+	private final VisitHistory history = new VisitHistory(this.dataSource);
+
+	@Test
+	void testRecentVisitsOfEveryPet() {
+		addVisits(7, 5);
+
+		Map<Integer, Slice<Visit>> recent = this.history.findRecentByOwner(6, 3);
+
+		assertThat(recent).containsOnlyKeys(7, 8);
+		assertThat(recent.get(7)).extracting(Visit::getDescription).containsExactly("visit 3", "visit 4", "visit 5");
+		assertThat(recent.get(7).hasNext()).isTrue();
+		assertThat(recent.get(8)).extracting(Visit::getDescription).containsExactly("rabies shot", "neutered");
+		assertThat(recent.get(8).hasNext()).isFalse();
+		assertThat(this.history.findRecentByOwner(1, 3)).isEmpty();
+	}
+
+	@Test
+	void testPagesFollowEachOtherWithoutGapsOrRepeats() {
+		addVisits(7, 5);
+		// a visit sharing the date of another one is told apart by its id
+		new JdbcTemplate(this.dataSource)
+			.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, '2020-01-03', 'same day')");
+
+		List<String> descriptions = new ArrayList<>();
+		Slice<Visit> page = this.history.findByPet(6, 7, 2);
+		descriptions.addAll(0, page.map(Visit::getDescription).getContent());
+		while (page.hasNext()) {
+			Visit oldest = page.getContent().get(0);
+			page = this.history.findByPetBefore(6, 7, oldest.getDate(), oldest.getId(), 2);
+			descriptions.addAll(0, page.map(Visit::getDescription).getContent());
+		}
+
+		assertThat(descriptions).containsExactly("rabies shot", "spayed", "visit 1", "visit 2", "visit 3", "same day",
+				"visit 4", "visit 5");
+	}
+
+	@Test
+	void testUndatedVisitsComeAfterDatedOnes() {
+		addVisits(7, 2);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+		for (String description : List.of("undated 1", "undated 2", "undated 3")) {
+			jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, NULL, ?)",
+					description);
+		}
+
+		List<String> descriptions = new ArrayList<>();
+		Slice<Visit> page = this.history.findByPet(6, 7, 2);
+		descriptions.addAll(0, page.map(Visit::getDescription).getContent());
+		while (page.hasNext()) {
+			Visit oldest = page.getContent().get(0);
+			page = this.history.findByPetBefore(6, 7, oldest.getDate(), oldest.getId(), 2);
+			descriptions.addAll(0, page.map(Visit::getDescription).getContent());
+		}
+
+		assertThat(descriptions).containsExactly("undated 1", "undated 2", "undated 3", "rabies shot", "spayed",
+				"visit 1", "visit 2");
+		assertThat(this.history.findRecentByOwner(6, 6).get(7)).extracting(Visit::getDescription)
+			.containsExactly("undated 2", "undated 3", "rabies shot", "spayed", "visit 1", "visit 2");
+	}
+
+	@Test
+	void testVisitsOfAnotherOwnersPetAreNotRead() {
+		assertThat(this.history.findByPet(1, 7, 5)).isEmpty();
+		assertThat(this.history.findByPetBefore(1, 7, LocalDate.of(2030, 1, 1), 0, 5)).isEmpty();
+	}
+
+	private void addVisits(int petId, int count) {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+		for (int i = 1; i <= count; i++) {
+			jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (?, ?, ?)", petId,
+					LocalDate.of(2020, 1, i), "visit " + i);
+		}
+	}
+
+	private static DataSource migratedDatabase() {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		Flyway.configure().dataSource(dataSource).locations("classpath:db/h2/migration").load().migrate();
+		return dataSource;
+	}
+
+}
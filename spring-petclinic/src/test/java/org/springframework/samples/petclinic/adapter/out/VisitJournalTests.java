@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.adapter.out;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for {@link VisitJournal}
+ */
+class VisitJournalTests {
+
+	private static final LocalDate DATE = LocalDate.of(2026, 3, 14);
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void testPendingEntriesAreReplayedAfterReopen() throws IOException {
+		Path file = dir.resolve("visits.journal");
+		try (VisitJournal journal = VisitJournal.open(file, 4096)) {
+			VisitJournal.Entry first = journal.append(1, 1, DATE, "rabies shot");
+			journal.append(6, 7, null, "nail trim");
+			journal.append(6, 8, DATE, "neutered");
+			journal.release(first.size());
+		}
+		try (VisitJournal journal = VisitJournal.open(file, 4096)) {
+			List<VisitJournal.Entry> pending = journal.pending();
+			assertThat(pending).extracting(VisitJournal.Entry::petId).containsExactly(7, 8);
+			assertThat(pending.get(0).date()).isNull();
+			assertThat(pending.get(1).date()).isEqualTo(DATE);
+			assertThat(pending.get(1).description()).isEqualTo("neutered");
+		}
+	}
+
+	@Test
+	void testTornEntryIsIgnored() throws IOException {
+		Path file = dir.resolve("visits.journal");
+		long end;
+		try (VisitJournal journal = VisitJournal.open(file, 4096)) {
+			journal.append(1, 1, DATE, "rabies shot");
+			VisitJournal.Entry second = journal.append(6, 7, DATE, "spayed");
+			end = 16 + journal.pending().get(0).size() + second.size();
+		}
+		try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+			raw.seek(end - 1);
+			raw.write('X');
+		}
+		try (VisitJournal journal = VisitJournal.open(file, 4096)) {
+			assertThat(journal.pending()).extracting(VisitJournal.Entry::petId).containsExactly(1);
+		}
+	}
+
+	@Test
+	void testReleasedSpaceIsReused() throws IOException {
+		try (VisitJournal journal = VisitJournal.open(dir.resolve("visits.journal"), 256)) {
+			int appended = 0;
+			for (int i = 0; i < 100; i++) {
+				VisitJournal.Entry entry = journal.append(1, i, DATE, "check-up");
+				assertThat(entry).isNotNull();
+				appended++;
+				if (appended == 3) {
+					journal.release(entry.size() * 2);
+					appended = 1;
+				}
+			}
+			assertThat(journal.pending()).extracting(VisitJournal.Entry::petId).containsExactly(98, 99);
+		}
+	}
+
+	@Test
+	void testFullJournalRefusesAppend() throws IOException {
+		try (VisitJournal journal = VisitJournal.open(dir.resolve("visits.journal"), 256)) {
+			int appended = 0;
+			while (journal.append(1, appended, DATE, "check-up") != null) {
+				appended++;
+			}
+			assertThat(appended).isPositive();
+			assertThat(journal.pending()).hasSize(appended);
+		}
+	}
+
+	@Test
+	void testJournalIsOpenedByOneOwnerOnly() throws IOException {
+		Path file = dir.resolve("visits.journal");
+		try (VisitJournal journal = VisitJournal.open(file, 4096)) {
+			assertThatIllegalStateException().isThrownBy(() -> VisitJournal.open(file, 4096));
+		}
+	}
+
+}
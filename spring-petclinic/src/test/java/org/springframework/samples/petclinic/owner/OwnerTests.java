@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.samples.petclinic.domain.Pet;
+
+/**
+ * Test class for the pet lookups and the last name key of {@link Owner}
+ */
+class OwnerTests {
+
+	private Owner owner;
+
+	private Pet leo;
+
+	@BeforeEach
+	void setup() {
+		owner = new Owner();
+		leo = pet(1, "Leo");
+		owner.getPets().add(leo);
+		owner.getPets().add(pet(2, "Basil"));
+	}
+
+	@Test
+	void testLookupByIdAndName() {
+		assertThat(owner.getPet(1)).isSameAs(leo);
+		assertThat(owner.getPet(3)).isNull();
+		assertThat(owner.getPet((Integer) null)).isNull();
+		assertThat(owner.getPet("lEO")).isSameAs(leo);
+		assertThat(owner.getPet("Leon")).isNull();
+		assertThat(owner.getPet((String) null)).isNull();
+	}
+
+	@Test
+	void testAddedPetIsFoundOnceSaved() {
+		assertThat(owner.getPet("Rosy")).isNull();
+		Pet rosy = pet(null, "Rosy");
+		owner.addPet(rosy);
+
+		assertThat(owner.getPet("rosy")).isSameAs(rosy);
+		assertThat(owner.getPet("rosy", true)).isNull();
+		rosy.setId(3);
+		assertThat(owner.getPet(3)).isSameAs(rosy);
+		assertThat(owner.getPet("rosy", true)).isSameAs(rosy);
+	}
+
+	@Test
+	void testRenamedPetIsFoundByNewName() {
+		assertThat(owner.getPet("Leo")).isSameAs(leo);
+		leo.setName("Jewel");
+
+		assertThat(owner.getPet("Leo")).isNull();
+		assertThat(owner.getPet("jewel")).isSameAs(leo);
+		assertThat(owner.getPet(1)).isSameAs(leo);
+	}
+
+	@Test
+	void testPetsSharingANameAreFoundInListOrder() {
+		Pet basil = owner.getPet("Basil");
+		Pet newBasil = pet(null, "BASIL");
+		owner.addPet(newBasil);
+		assertThat(owner.getPet("basil")).isSameAs(basil);
+
+		basil.setName("Basil II");
+		assertThat(owner.getPet("basil")).isSameAs(newBasil);
+		assertThat(owner.getPet("basil", true)).isNull();
+
+		basil.setName("Basil");
+		assertThat(owner.getPet("basil")).isSameAs(basil);
+	}
+
+	@Test
+	void testListChangesBypassingTheOwnerAreSeen() {
+		assertThat(owner.getPet("Samantha")).isNull();
+		Pet samantha = pet(7, "Samantha");
+		owner.getPets().add(samantha);
+
+		assertThat(owner.getPet("Samantha")).isSameAs(samantha);
+		assertThat(owner.getPet(7)).isSameAs(samantha);
+	}
+
+	@Test
+	void testSerializedOwnerRebuildsItsIndex() throws Exception {
+		assertThat(owner.getPet(1)).isSameAs(leo);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(owner);
+		}
+		Owner other;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			other = (Owner) in.readObject();
+		}
+
+		assertThat(other.getPet(1).getName()).isEqualTo("Leo");
+		assertThat(other.getPet("basil").getId()).isEqualTo(2);
+	}
+
+	@Test
+	void testLastNameKeyIsFoldedFromLastName() {
+		owner.setLastName("Éscobar-Müller");
+		assertThat(owner.getLastName()).isEqualTo("Éscobar-Müller");
+		assertThat(Owner.lastNameKey(owner.getLastName())).isEqualTo("escobar-muller");
+		assertThat(Owner.lastNameKey("DAVIS")).isEqualTo("davis");
+		assertThat(Owner.lastNameKey(null)).isNull();
+	}
+
+	private static Pet pet(Integer id, String name) {
+		Pet pet = new Pet();
+		pet.setId(id);
+		pet.setName(name);
+		return pet;
+	}
+
+}
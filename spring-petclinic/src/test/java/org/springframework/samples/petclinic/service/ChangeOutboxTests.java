@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase.Replace;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.adapter.out.ChangeOutbox;
+import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.samples.petclinic.adapter.out.PetTypeRepository;
+import org.springframework.samples.petclinic.adapter.out.StatisticsCounters;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.domain.ChangeEvent;
+import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.samples.petclinic.domain.Pet;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration test of the {@link ChangeOutbox}: writes to owners and pets record their
+ * change events in the same transaction, and relayed events are read back by offset.
+ */
+@DataJpaTest
+@Import({ OwnerService.class, ChangeOutbox.class, StatisticsCounters.class })
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class ChangeOutboxTests {
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private PetTypeRepository types;
+
+	@Autowired
+	private OwnerService ownerService;
+
+	@Autowired
+	private ChangeOutbox outbox;
+
+	@Test
+	void shouldRecordNewOwnerAndPets() {
+		long start = this.outbox.lastOffset();
+		Owner owner = new Owner();
+		owner.setFirstName("Sam");
+		owner.setLastName("Schultz");
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		owner.addPet(pet("bowser"));
+		this.owners.save(owner);
+
+		List<ChangeEvent> events = relayed(start);
+		assertThat(events).extracting(ChangeEvent::aggregate, ChangeEvent::type)
+			.containsExactly(tuple("owner", "created"), tuple("pet", "created"));
+		assertThat(events.get(0).aggregateId()).isEqualTo(owner.getId());
+		assertThat(events.get(0).payload()).contains("\"lastName\":\"Schultz\"");
+		assertThat(events.get(1).payload()).contains("\"ownerId\":" + owner.getId())
+			.contains("\"name\":\"bowser\"")
+			.contains("\"birthDate\":\"2020-01-15\"");
+	}
+
+	@Test
+	void shouldRecordPetAddedToExistingOwner() {
+		long start = this.outbox.lastOffset();
+		Owner owner = this.owners.findById(6).get();
+		owner.addPet(pet("tiger"));
+		Owner saved = this.owners.save(owner);
+
+		List<ChangeEvent> events = relayed(start);
+		Pet tiger = saved.getPet("tiger");
+		assertThat(events).extracting(ChangeEvent::aggregate).containsExactly("owner", "pet");
+		assertThat(events.get(1).aggregateId()).isEqualTo(tiger.getId());
+	}
+
+	@Test
+	void shouldRecordEdits() {
+		long start = this.outbox.lastOffset();
+		Owner changes = new Owner();
+		changes.setFirstName("George");
+		changes.setLastName("Franklin");
+		changes.setAddress("110 W. Liberty St.");
+		changes.setCity("Springfield");
+		changes.setTelephone("6085551023");
+		changes.setVersion(this.owners.findById(1).get().getVersion());
+		this.ownerService.updateOwner(1, changes);
+
+		List<ChangeEvent> events = relayed(start);
+		assertThat(events).singleElement().satisfies(event -> {
+			assertThat(event.aggregate()).isEqualTo("owner");
+			assertThat(event.type()).isEqualTo("updated");
+			assertThat(event.payload()).contains("\"city\":\"Springfield\"");
+		});
+	}
+
+	@Test
+	void shouldResumeAfterOffset() {
+		long start = this.outbox.lastOffset();
+		this.ownerService.updateOwner(1, this.owners.findById(1).get());
+		this.ownerService.updateOwner(2, this.owners.findById(2).get());
+		List<ChangeEvent> events = relayed(start);
+		assertThat(events).hasSize(2);
+		assertThat(events.get(1).offset()).isEqualTo(events.get(0).offset() + 1);
+
+		assertThat(this.outbox.readAfter(events.get(0).offset(), 10)).singleElement()
+			.extracting(ChangeEvent::aggregateId)
+			.isEqualTo(2);
+	}
+
+	@Test
+	void shouldKeepNumberingAfterPurgeEmptiedTheFeed() {
+		this.ownerService.updateOwner(1, this.owners.findById(1).get());
+		this.outbox.relay(100);
+		long last = this.outbox.lastOffset();
+		this.outbox.purge(Instant.now().plusSeconds(60));
+		assertThat(this.outbox.readAfter(0, 10)).isEmpty();
+
+		this.ownerService.updateOwner(2, this.owners.findById(2).get());
+		assertThat(relayed(last)).singleElement().extracting(ChangeEvent::offset).isEqualTo(last + 1);
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void shouldNotRecordOutsideOfTransaction() {
+		assertThatExceptionOfType(IllegalTransactionStateException.class)
+			.isThrownBy(() -> this.outbox.visitBooked(1, 1, LocalDate.now(), "check-up"));
+	}
+
+	private List<ChangeEvent> relayed(long start) {
+		this.outbox.relay(100);
+		return this.outbox.readAfter(start, 100);
+	}
+
+	private Pet pet(String name) {
+		Pet pet = new Pet();
+		pet.setName(name);
+		pet.setBirthDate(LocalDate.of(2020, 1, 15));
+		pet.setType(this.types.findPetTypes().get(1));
+		return pet;
+	}
+
+}
@@ -17,21 +17,33 @@
 package org.springframework.samples.petclinic.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
 import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
 import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.adapter.out.ChangeOutbox;
 import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
 import org.springframework.samples.petclinic.adapter.out.PetTypeRepository;
+import org.springframework.samples.petclinic.adapter.out.StatisticsCounters;
 import org.springframework.samples.petclinic.adapter.out.VetRepository;
+import org.springframework.samples.petclinic.adapter.out.VisitRepository;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.domain.DuplicatePetNameException;
 import org.springframework.samples.petclinic.domain.Owner;
 import org.springframework.samples.petclinic.domain.Pet;
 import org.springframework.samples.petclinic.domain.PetType;
@@ -67,7 +79,9 @@ import org.springframework.transaction.annotation.Transactional;
  * @author Michael Isvy
  * @author Dave Syer
  */
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "org.springframework.samples.petclinic.service.ClinicServiceTests$SqlCapture")
+@Import({ OwnerService.class, ChangeOutbox.class, StatisticsCounters.class })
 // Ensure that if the mysql profile is active we connect to the real database:
 @AutoConfigureTestDatabase(replace = Replace.NONE)
 // @TestPropertySource("/application-postgres.properties")
@@ -79,9 +93,18 @@ class ClinicServiceTests {
 	@Autowired
 	protected PetTypeRepository types;
 
+	@Autowired
+	protected VisitRepository visits;
+
 	@Autowired
 	protected VetRepository vets;
 
+	@Autowired
+	protected OwnerService ownerService;
+
+	@Autowired
+	protected TestEntityManager entityManager;
+
 	private final Pageable pageable = Pageable.unpaged();
 
 	@Test
@@ -93,6 +116,22 @@ class ClinicServiceTests {
 		assertThat(owners).isEmpty();
 	}
 
+	@Test
+	@Transactional
+	void shouldFindOwnersByLastNameIgnoringCaseAndAccents() {
+		Owner owner = new Owner();
+		owner.setFirstName("Zoë");
+		owner.setLastName("Ångström");
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		this.owners.save(owner);
+
+		assertThat(this.owners.findByLastNameStartingWith("angs", pageable)).containsExactly(owner);
+		assertThat(this.owners.findByLastNameStartingWith("ÅNGSTRÖM", pageable)).containsExactly(owner);
+		assertThat(this.owners.findByLastNameStartingWith("davis", pageable)).hasSize(2);
+	}
+
 	@Test
 	void shouldFindSingleOwnerWithPet() {
 		Optional<Owner> optionalOwner = this.owners.findById(1);
@@ -180,6 +219,35 @@ class ClinicServiceTests {
 		assertThat(pet.getId()).isNotNull();
 	}
 
+	@Test
+	@Transactional
+	void shouldAddPetLoadingOwnerOnlyOnce() {
+		Pet pet = new Pet();
+		pet.setName("bowser");
+		pet.setType(EntityUtils.getById(this.types.findPetTypes(), PetType.class, 2));
+		pet.setBirthDate(LocalDate.now());
+
+		SqlCapture.STATEMENTS.clear();
+		this.ownerService.addPet(6, pet);
+
+		assertThat(pet.getId()).isNotNull();
+		assertThat(SqlCapture.STATEMENTS).filteredOn(sql -> sql.contains(" from owners ")).hasSize(1);
+		assertThat(SqlCapture.STATEMENTS).filteredOn(sql -> sql.startsWith("insert into pets")).hasSize(1);
+		assertThat(this.owners.findById(6).get().getPet("bowser")).isSameAs(pet);
+	}
+
+	@Test
+	@Transactional
+	void shouldRejectPetWithNameOfAnotherPet() {
+		Pet pet = new Pet();
+		pet.setName("SAMANTHA");
+		pet.setType(EntityUtils.getById(this.types.findPetTypes(), PetType.class, 1));
+		pet.setBirthDate(LocalDate.now());
+
+		assertThatExceptionOfType(DuplicatePetNameException.class).isThrownBy(() -> this.ownerService.addPet(6, pet));
+		assertThat(this.owners.findById(6).get().getPets()).hasSize(2);
+	}
+
 	@Test
 	@Transactional
 	void shouldUpdatePetName() {
@@ -232,6 +300,82 @@ class ClinicServiceTests {
 			.allMatch(value -> value.getId() != null);
 	}
 
+	@Test
+	@Transactional
+	void shouldInsertVisitForOwnedPetOnly() {
+		LocalDate today = LocalDate.now();
+		assertThat(this.visits.insertForOwnedPet(6, 7, today, "direct")).isEqualTo(1);
+		assertThat(this.visits.insertForOwnedPet(1, 7, today, "wrong owner")).isZero();
+		assertThat(this.visits.insertForOwnedPet(6, 999, today, "no such pet")).isZero();
+
+		Pet pet7 = this.owners.findById(6).get().getPet(7);
+		assertThat(pet7.getVisits()).extracting(Visit::getDescription).contains("direct").doesNotContain("wrong owner");
+	}
+
+	@Test
+	@Transactional
+	void shouldUpdateOnlyChangedOwnerColumns() {
+		Owner owner = this.owners.findById(1).get();
+		Owner changes = new Owner();
+		changes.setFirstName(owner.getFirstName());
+		changes.setLastName(owner.getLastName());
+		changes.setAddress(owner.getAddress());
+		changes.setCity("Madison West");
+		changes.setTelephone(owner.getTelephone());
+		changes.setVersion(owner.getVersion());
+
+		SqlCapture.STATEMENTS.clear();
+		this.ownerService.updateOwner(1, changes);
+		this.entityManager.flush();
+
+		assertThat(SqlCapture.updates()).singleElement()
+			.satisfies(sql -> assertThat(sql).startsWith("update owners set city=?").doesNotContain("first_name"));
+	}
+
+	@Test
+	@Transactional
+	void shouldUpdateOnlyChangedPetColumns() {
+		Pet pet = this.owners.findById(1).get().getPet(1);
+		Pet changes = new Pet();
+		changes.setId(pet.getId());
+		changes.setName("Leonardo");
+		changes.setBirthDate(pet.getBirthDate());
+		changes.setType(pet.getType());
+		changes.setVersion(pet.getVersion());
+
+		SqlCapture.STATEMENTS.clear();
+		this.ownerService.updatePet(1, changes);
+		this.entityManager.flush();
+
+		assertThat(SqlCapture.updates()).singleElement()
+			.satisfies(sql -> assertThat(sql).startsWith("update pets set name=?").doesNotContain("birth_date"));
+	}
+
+	@Test
+	@Transactional
+	void shouldRejectUpdateBasedOnStaleVersion() {
+		Owner owner = this.owners.findById(1).get();
+		Owner changes = new Owner();
+		changes.setLastName("Stale");
+		changes.setVersion(owner.getVersion() + 1);
+
+		assertThatExceptionOfType(OptimisticLockingFailureException.class)
+			.isThrownBy(() -> this.ownerService.updateOwner(1, changes));
+		assertThat(owner.getLastName()).isEqualTo("Franklin");
+	}
+
+	@Test
+	@Transactional
+	void shouldRejectUpdateWithoutVersion() {
+		Owner owner = this.owners.findById(1).get();
+		Owner changes = new Owner();
+		changes.setLastName("Unversioned");
+
+		assertThatExceptionOfType(OptimisticLockingFailureException.class)
+			.isThrownBy(() -> this.ownerService.updateOwner(1, changes));
+		assertThat(owner.getLastName()).isEqualTo("Franklin");
+	}
+
 	@Test
 	void shouldFindVisitsByPetId() {
 		Optional<Owner> optionalOwner = this.owners.findById(6);
@@ -248,4 +392,24 @@ class ClinicServiceTests {
 			.isNotNull();
 	}
 
+	/**
+	 * Records the SQL sent by Hibernate, so tests can check which columns an update
+	 * touches.
+	 */
+	public static class SqlCapture implements StatementInspector {
+
+		static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		static List<String> updates() {
+			return STATEMENTS.stream().filter(sql -> sql.startsWith("update")).toList();
+		}
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+
+	}
+
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.samples.petclinic.adapter.out.StatementTimingDataSource;
+import org.springframework.samples.petclinic.adapter.out.VetRepository;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration test for the connection pool and statement metrics published on the
+ * actuator metrics endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class DataSourceMetricsTests {
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void testDataSourceIsTimedPool() throws Exception {
+		assertThat(this.dataSource).isInstanceOf(StatementTimingDataSource.class);
+		assertThat(this.dataSource.unwrap(HikariDataSource.class).getPoolName()).isEqualTo("primary");
+	}
+
+	@Test
+	void testPoolMetricsArePublished() throws Exception {
+		for (String metric : new String[] { "hikaricp.connections.active", "hikaricp.connections.idle",
+				"hikaricp.connections.pending", "hikaricp.connections.acquire" }) {
+			this.mockMvc.perform(get("/actuator/metrics/{metric}", metric).param("tag", "pool:primary"))
+				.andExpect(status().isOk());
+		}
+	}
+
+	@Test
+	void testStatementMetricsArePublished() throws Exception {
+		this.vets.findAll();
+
+		this.mockMvc.perform(get("/actuator/metrics/petclinic.jdbc.statements").param("tag", "outcome:success"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.availableTags[?(@.tag == 'statement')].values[*]").isNotEmpty());
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration test for the latency metrics of controller and repository methods, on the
+ * actuator metrics and Prometheus endpoints.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class LatencyMetricsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void showOwner() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}", 1)).andExpect(status().isOk());
+	}
+
+	@Test
+	void testControllerMethodsAreTaggedWithEndpoint() throws Exception {
+		this.mockMvc
+			.perform(get("/actuator/metrics/http.server.requests").param("tag", "endpoint:OwnerController.showOwner"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.availableTags[?(@.tag == 'outcome')].values[*]").value("SUCCESS"));
+	}
+
+	@Test
+	void testRepositoryMethodsAreObserved() throws Exception {
+		this.mockMvc
+			.perform(get("/actuator/metrics/petclinic.repository").param("tag", "repository:OwnerRepository")
+				.param("tag", "method:findById")
+				.param("tag", "outcome:success"))
+			.andExpect(status().isOk());
+		this.mockMvc
+			.perform(get("/actuator/metrics/petclinic.repository").param("tag", "repository:VisitHistory")
+				.param("tag", "method:findRecentByOwner"))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	void testHistogramsAreScrapedByPrometheus() throws Exception {
+		this.mockMvc.perform(get("/actuator/prometheus"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("endpoint=\"OwnerController.showOwner\"")))
+			.andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+			.andExpect(content().string(containsString("petclinic_repository_seconds_bucket{")));
+	}
+
+}
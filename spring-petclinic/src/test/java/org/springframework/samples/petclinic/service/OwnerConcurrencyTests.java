@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Parallel edits of the same owner through {@link OwnerService}: every edit is a
+ * read-modify-write of a counter kept in the telephone number, and an editor whose
+ * version turned out to be stale reloads and tries again. With optimistic locking in
+ * place, no increment may get lost.
+ * <p>
+ * The edits are committed, and also recorded in the change outbox, so the context is
+ * discarded afterwards rather than leaving them to the tests that follow.
+ * </p>
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+@DirtiesContext
+class OwnerConcurrencyTests {
+
+	private static final int EDITORS = 8;
+
+	private static final int EDITS_PER_EDITOR = 25;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private OwnerService ownerService;
+
+	@Test
+	void testParallelEditsLoseNoUpdates() throws Exception {
+		Owner owner = new Owner();
+		owner.setFirstName("Concurrent");
+		owner.setLastName("Editor");
+		owner.setAddress("1 Race Street");
+		owner.setCity("Lockport");
+		owner.setTelephone(telephone(0));
+		int ownerId = this.owners.save(owner).getId();
+
+		AtomicInteger conflicts = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(EDITORS);
+		try {
+			List<Future<?>> editors = new ArrayList<>();
+			for (int i = 0; i < EDITORS; i++) {
+				editors.add(executor.submit(() -> {
+					for (int edit = 0; edit < EDITS_PER_EDITOR; edit++) {
+						while (!increment(ownerId)) {
+							conflicts.incrementAndGet();
+						}
+					}
+				}));
+			}
+			for (Future<?> editor : editors) {
+				editor.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		Owner result = this.owners.findById(ownerId).get();
+		assertThat(result.getTelephone()).isEqualTo(telephone(EDITORS * EDITS_PER_EDITOR));
+		assertThat(result.getVersion()).isEqualTo(EDITORS * EDITS_PER_EDITOR);
+	}
+
+	private boolean increment(int ownerId) {
+		Owner current = this.owners.findById(ownerId).get();
+		Owner changes = new Owner();
+		changes.setFirstName(current.getFirstName());
+		changes.setLastName(current.getLastName());
+		changes.setAddress(current.getAddress());
+		changes.setCity(current.getCity());
+		changes.setTelephone(telephone(Long.parseLong(current.getTelephone()) + 1));
+		changes.setVersion(current.getVersion());
+		try {
+			this.ownerService.updateOwner(ownerId, changes);
+			return true;
+		}
+		catch (OptimisticLockingFailureException ex) {
+			return false;
+		}
+	}
+
+	private static String telephone(long counter) {
+		return String.format("%010d", counter);
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.samples.petclinic.adapter.out.ReadReplicas;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Integration test for reading from a replica, a second H2 database that holds an owner
+ * the primary does not have.
+ */
+@SpringBootTest(properties = "petclinic.datasource.replicas.check-interval=1h")
+@AutoConfigureMockMvc
+class ReadReplicaTests {
+
+	private static final String REPLICA_URL = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+	@DynamicPropertySource
+	static void replica(DynamicPropertyRegistry registry) {
+		DataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+		Flyway.configure().dataSource(replica).locations("classpath:db/h2/migration").load().migrate();
+		new JdbcTemplate(replica)
+			.update("INSERT INTO owners (first_name, last_name, last_name_key, address, city, telephone, version)"
+					+ " VALUES ('Rita', 'Replica', 'replica', '2 Main St.', 'Madison', '6085550000', 0)");
+		registry.add("petclinic.datasource.replicas.urls", () -> REPLICA_URL);
+	}
+
+	@Autowired
+	private OwnerService owners;
+
+	@Autowired
+	private ReadReplicas replicas;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void checkReplicas() {
+		this.replicas.check();
+	}
+
+	@Test
+	void testReadOnlyTransactionsUseReplica() {
+		assertThat(this.owners.findOwners("Replica", PageRequest.of(0, 5))).extracting(Owner::getFirstName)
+			.containsExactly("Rita");
+		assertThat(new JdbcTemplate(this.dataSource)
+			.queryForObject("SELECT COUNT(*) FROM owners WHERE last_name = 'Replica'", Integer.class)).isZero();
+	}
+
+	@Test
+	void testClientReadsOwnWritesFromPrimary() throws Exception {
+		MvcResult created = this.mockMvc
+			.perform(post("/owners/new").param("firstName", "Wanda")
+				.param("lastName", "Writer")
+				.param("address", "1 Main St.")
+				.param("city", "Madison")
+				.param("telephone", "6085551234"))
+			.andExpect(status().is3xxRedirection())
+			.andReturn();
+		Cookie wrote = created.getResponse().getCookie("petclinic-wrote");
+		assertThat(wrote).isNotNull();
+		this.replicas.check();
+
+		this.mockMvc.perform(get("/owners").param("lastName", "Writer").cookie(wrote))
+			.andExpect(status().is3xxRedirection());
+		this.mockMvc.perform(get("/owners").param("lastName", "Writer"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("owners/findOwners"));
+	}
+
+}
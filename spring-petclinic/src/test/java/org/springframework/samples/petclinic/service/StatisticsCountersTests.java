@@ -0,0 +1,206 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase.Replace;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.adapter.out.ChangeOutbox;
+import org.springframework.samples.petclinic.adapter.out.OwnerRepository;
+import org.springframework.samples.petclinic.adapter.out.PetTypeRepository;
+import org.springframework.samples.petclinic.adapter.out.StatisticsCounters;
+import org.springframework.samples.petclinic.application.OwnerService;
+import org.springframework.samples.petclinic.domain.ClinicStatistics;
+import org.springframework.samples.petclinic.domain.ClinicStatistics.Count;
+import org.springframework.samples.petclinic.domain.Owner;
+import org.springframework.samples.petclinic.domain.Pet;
+import org.springframework.samples.petclinic.domain.PetType;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration test of the {@link StatisticsCounters}: the migration counts the sample
+ * data, writes update the counts in their transaction, and a rebuild arrives at the same
+ * counts.
+ */
+@DataJpaTest
+@Import({ OwnerService.class, ChangeOutbox.class, StatisticsCounters.class })
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class StatisticsCountersTests {
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private PetTypeRepository types;
+
+	@Autowired
+	private OwnerService ownerService;
+
+	@Autowired
+	private StatisticsCounters statistics;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldCountSampleData() {
+		ClinicStatistics statistics = this.statistics.read();
+
+		assertThat(statistics.petsPerType()).contains(new Count("cat", 4), new Count("dog", 4));
+		assertThat(statistics.petsPerType()).extracting(Count::total).containsOnly(4L, 2L, 1L);
+		assertThat(statistics.visitsPerMonth()).containsExactly(new Count("2013-01", 4));
+		// the sample owners predate registration dates
+		assertThat(statistics.ownersPerWeek()).isEmpty();
+	}
+
+	@Test
+	void shouldCountNewOwnerAndPets() {
+		Owner owner = new Owner();
+		owner.setFirstName("Sam");
+		owner.setLastName("Schultz");
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		owner.addPet(pet("bowser", "dog"));
+		this.owners.save(owner);
+		this.ownerService.addPet(owner.getId(), pet("tiddles", "cat"));
+
+		ClinicStatistics statistics = this.statistics.read();
+		assertThat(statistics.petsPerType()).contains(new Count("cat", 5), new Count("dog", 5));
+		String week = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toString();
+		assertThat(statistics.ownersPerWeek()).containsExactly(new Count(week, 1));
+	}
+
+	@Test
+	void shouldMovePetBetweenTypes() {
+		Pet leo = this.owners.findById(1).get().getPet(1);
+		Pet changes = new Pet();
+		changes.setId(leo.getId());
+		changes.setName(leo.getName());
+		changes.setBirthDate(leo.getBirthDate());
+		changes.setType(type("dog"));
+		changes.setVersion(leo.getVersion());
+		this.ownerService.updatePet(1, changes);
+
+		assertThat(this.statistics.read().petsPerType()).contains(new Count("cat", 3), new Count("dog", 5));
+	}
+
+	@Test
+	void shouldCountVisitsByMonth() {
+		this.statistics.visitsBooked(List.of(LocalDate.of(2013, 1, 31), LocalDate.of(2013, 2, 1)));
+
+		assertThat(this.statistics.read().visitsPerMonth()).containsExactly(new Count("2013-01", 5),
+				new Count("2013-02", 1));
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void shouldCountConcurrentVisitsInNewMonth() throws Exception {
+		TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+		LocalDate date = LocalDate.of(1999, 5, 1);
+		CountDownLatch counted = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> first = executor.submit(() -> transaction.executeWithoutResult(status -> {
+				this.statistics.visitsBooked(List.of(date));
+				counted.countDown();
+				await(commit);
+			}));
+			assertThat(counted.await(10, TimeUnit.SECONDS)).isTrue();
+			// both transactions find no row for the month and insert one
+			Future<?> second = executor
+				.submit(() -> transaction.executeWithoutResult(status -> this.statistics.visitsBooked(List.of(date))));
+			Thread.sleep(200);
+			commit.countDown();
+			first.get(10, TimeUnit.SECONDS);
+			second.get(10, TimeUnit.SECONDS);
+
+			assertThat(this.statistics.read().visitsPerMonth()).contains(new Count("1999-05", 2));
+		}
+		finally {
+			commit.countDown();
+			executor.shutdownNow();
+			this.jdbcTemplate.update("DELETE FROM visit_month_statistics WHERE visit_month = ?", date);
+		}
+	}
+
+	@Test
+	void shouldRebuildTheSameCounts() {
+		Owner owner = this.owners.findById(6).get();
+		owner.addPet(pet("tiger", "cat"));
+		this.owners.save(owner);
+		ClinicStatistics counted = this.statistics.read();
+
+		this.statistics.rebuild();
+
+		assertThat(this.statistics.read()).isEqualTo(counted);
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void shouldNotCountOutsideOfTransaction() {
+		assertThatExceptionOfType(IllegalTransactionStateException.class)
+			.isThrownBy(() -> this.statistics.visitsBooked(List.of(LocalDate.now())));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Pet pet(String name, String type) {
+		Pet pet = new Pet();
+		pet.setName(name);
+		pet.setBirthDate(LocalDate.of(2020, 1, 15));
+		pet.setType(type(type));
+		return pet;
+	}
+
+	private PetType type(String name) {
+		return this.types.findPetTypes().stream().filter(type -> type.getName().equals(name)).findFirst().orElseThrow();
+	}
+
+}
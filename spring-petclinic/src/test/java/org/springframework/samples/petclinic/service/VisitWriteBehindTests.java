@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.adapter.out.WriteBehindVisitQueue;
+import org.springframework.samples.petclinic.application.VisitService;
+import org.springframework.samples.petclinic.domain.Visit;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Integration test for write-behind visit booking through {@link VisitService}.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.NONE, properties = "petclinic.visits.write-behind.enabled=true")
+class VisitWriteBehindTests {
+
+	@TempDir
+	static Path dir;
+
+	@DynamicPropertySource
+	static void journal(DynamicPropertyRegistry registry) {
+		registry.add("petclinic.visits.write-behind.journal", () -> dir.resolve("visits.journal").toString());
+	}
+
+	@Autowired
+	private VisitService visits;
+
+	@Autowired
+	private WriteBehindVisitQueue queue;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Test
+	void testQueuedVisitsAreWrittenInTheBackground() throws InterruptedException {
+		int before = countVisits(8);
+		for (int i = 0; i < 50; i++) {
+			this.visits.bookVisit(6, 8, visit("booster " + i));
+		}
+		// pet 8 belongs to owner 6, not owner 1: dropped when written
+		this.visits.bookVisit(1, 8, visit("not my pet"));
+
+		awaitEmptyQueue();
+		assertThat(countVisits(8)).isEqualTo(before + 50);
+		assertThat(this.registry.get("petclinic.visits.write_behind.dropped").counter().count()).isEqualTo(1);
+		assertThat(this.registry.get("petclinic.visits.write_behind.depth").gauge().value()).isZero();
+	}
+
+	@Test
+	void testRejectedVisitIsDeadLetteredWithoutBlockingTheOthers() throws InterruptedException {
+		int before = countVisits(7);
+		this.visits.bookVisit(6, 7, visit("checkup"));
+		// longer than the column, so the batch fails until the visit is set aside
+		this.visits.bookVisit(6, 7, visit("x".repeat(300)));
+		this.visits.bookVisit(6, 7, visit("vaccination"));
+
+		awaitEmptyQueue();
+		assertThat(countVisits(7)).isEqualTo(before + 2);
+		assertThat(this.registry.get("petclinic.visits.write_behind.dead_lettered").counter().count()).isEqualTo(1);
+	}
+
+	private void awaitEmptyQueue() throws InterruptedException {
+		for (int i = 0; i < 200 && this.queue.getDepth() > 0; i++) {
+			Thread.sleep(50);
+		}
+		assertThat(this.queue.getDepth()).isZero();
+	}
+
+	private int countVisits(int petId) {
+		return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits WHERE pet_id = ?", Integer.class, petId);
+	}
+
+	private static Visit visit(String description) {
+		Visit visit = new Visit();
+		visit.setDate(LocalDate.of(2026, 3, 14));
+		visit.setDescription(description);
+		return visit;
+	}
+
+}
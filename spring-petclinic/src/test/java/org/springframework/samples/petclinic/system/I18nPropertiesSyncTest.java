@@ -1,11 +1,14 @@
 package org.springframework.samples.petclinic.system;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.adapter.in.CompiledMessageSource;
+import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -18,7 +21,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 /**
  * This test ensures that there are no hard-coded strings without internationalization in
  * any HTML files. Also ensures that a string is translated in every language to avoid
- * partial translations.
+ * partial translations, and that the compiled message tables match the property files.
  *
  * @author Anuj Ashok Potdar
  */
@@ -84,22 +87,7 @@ public class I18nPropertiesSyncTest {
 
 	@Test
 	public void checkI18nPropertyFilesAreInSync() throws IOException {
-		List<Path> propertyFiles;
-		try (Stream<Path> stream = Files.walk(Paths.get(I18N_DIR))) {
-			propertyFiles = stream.filter(p -> p.getFileName().toString().startsWith(BASE_NAME))
-				.filter(p -> p.getFileName().toString().endsWith(PROPERTIES))
-				.toList();
-		}
-
-		Map<String, Properties> localeToProps = new HashMap<>();
-
-		for (Path path : propertyFiles) {
-			Properties props = new Properties();
-			try (var reader = Files.newBufferedReader(path)) {
-				props.load(reader);
-				localeToProps.put(path.getFileName().toString(), props);
-			}
-		}
+		Map<String, Properties> localeToProps = loadPropertyFiles();
 
 		String baseFile = BASE_NAME + PROPERTIES;
 		Properties baseProps = localeToProps.get(baseFile);
@@ -133,4 +121,69 @@ public class I18nPropertiesSyncTest {
 		}
 	}
 
+	@Test
+	public void checkCompiledMessageTablesMatchPropertyFiles() throws IOException {
+		Map<String, Properties> localeToProps = loadPropertyFiles();
+		Properties baseProps = localeToProps.get(BASE_NAME + PROPERTIES);
+		CompiledMessageSource messageSource = new CompiledMessageSource("messages/" + BASE_NAME);
+
+		StringBuilder report = new StringBuilder();
+
+		for (Map.Entry<String, Properties> entry : localeToProps.entrySet()) {
+			String fileName = entry.getKey();
+			String suffix = fileName.substring(BASE_NAME.length(), fileName.length() - PROPERTIES.length());
+			Locale locale = suffix.isEmpty() ? Locale.ROOT : StringUtils.parseLocale(suffix.substring(1));
+			if (!messageSource.getCompiledLocales().contains(locale)) {
+				report.append("No compiled table for ").append(fileName).append("\n");
+				continue;
+			}
+
+			Map<String, String> table = messageSource.getMessages(locale);
+			for (String key : baseProps.stringPropertyNames()) {
+				String expected = entry.getValue().getProperty(key, baseProps.getProperty(key));
+				if (!expected.equals(table.get(key)) || !expected.equals(messageSource.getMessage(key, null, locale))) {
+					report.append("Compiled ").append(fileName).append(" differs for ").append(key).append("\n");
+				}
+			}
+		}
+
+		// locales without a bundle of their own use the default messages
+		if (!messageSource.getMessages(Locale.FRENCH).equals(messageSource.getMessages(Locale.ROOT))) {
+			report.append("Unsupported locale does not fall back to the default messages\n");
+		}
+
+		// once the derived tables are capped, Accept-Language noise shares compiled
+		// tables
+		for (int i = 0; i < 100; i++) {
+			messageSource.getMessages(new Locale("de", "X" + i));
+		}
+		if (messageSource.getMessages(new Locale("de", "XX")) != messageSource.getMessages(Locale.GERMAN)) {
+			report.append("Derived locale past the cap does not share the table of its language\n");
+		}
+
+		if (!report.isEmpty()) {
+			fail("Compiled message tables are not in sync:\n" + report);
+		}
+	}
+
+	private Map<String, Properties> loadPropertyFiles() throws IOException {
+		List<Path> propertyFiles;
+		try (Stream<Path> stream = Files.walk(Paths.get(I18N_DIR))) {
+			propertyFiles = stream.filter(p -> p.getFileName().toString().startsWith(BASE_NAME))
+				.filter(p -> p.getFileName().toString().endsWith(PROPERTIES))
+				.toList();
+		}
+
+		Map<String, Properties> localeToProps = new HashMap<>();
+
+		for (Path path : propertyFiles) {
+			Properties props = new Properties();
+			try (var reader = Files.newBufferedReader(path)) {
+				props.load(reader);
+				localeToProps.put(path.getFileName().toString(), props);
+			}
+		}
+		return localeToProps;
+	}
+
 }